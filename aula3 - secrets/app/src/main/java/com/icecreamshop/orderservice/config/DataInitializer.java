@@ -6,6 +6,7 @@ import com.icecreamshop.orderservice.model.OrderStatus;
 import com.icecreamshop.orderservice.model.PaymentMethod;
 import com.icecreamshop.orderservice.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -22,10 +23,20 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private OrderRepository orderRepository;
     
+    @Autowired
+    private OrderSeeder orderSeeder;
+    
+    @Value("${icecream.seed.orders:0}")
+    private long seedOrders;
+    
     @Override
     public void run(String... args) throws Exception {
         // Only initialize if database is empty
         if (orderRepository.count() == 0) {
+            if (seedOrders > 0) {
+                orderSeeder.seed(seedOrders);
+                return;
+            }
             initializeSampleOrders();
             System.out.println("✅ Sample ice cream orders created successfully!");
         }
@@ -0,0 +1,84 @@
+package com.icecreamshop.orderservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource Routing Config - Separate connection pools for the primary and a read replica
+ * 
+ * The primary pool is configured by spring.datasource.* and spring.datasource.hikari.*,
+ * the replica pool by icecream.datasource.replica.* and icecream.datasource.replica.hikari.*,
+ * so each is sized on its own. The application DataSource routes the read-only
+ * transactions of read requests to the replica (see ReadWriteRoutingDataSource and
+ * ReadYourWritesFilter) and everything else, writes, Flyway, JDBC outside transactions
+ * and background jobs, to the primary.
+ * 
+ * Locally the replica defaults to the primary's H2 database through its own pool. To
+ * run it against a second H2 instance, point icecream.datasource.replica.url at it and
+ * set icecream.datasource.replica.migrate=true so Flyway creates the schema there too;
+ * nothing replicates between the two, so routed reads only see the replica's own rows.
+ */
+@Configuration
+@ConditionalOnProperty(name = "icecream.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+    
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    @ConfigurationProperties("icecream.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${icecream.datasource.replica.url}") String url,
+                                              @Value("${icecream.datasource.replica.username:}") String username,
+                                              @Value("${icecream.datasource.replica.password:}") String password) {
+        return DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 @Value("${icecream.datasource.replica.migrate:false}") boolean migrateReplica,
+                                 @Value("${spring.flyway.locations:classpath:db/migration}") String[] locations) {
+        if (migrateReplica) {
+            Flyway.configure().dataSource(replica).locations(locations).load().migrate();
+        }
+        // Connections are taken lazily, once the transaction's read-only flag is known
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica));
+    }
+    
+    /**
+     * Give the connection back after each transaction instead of holding it for the whole
+     * request, so a request that reads and then writes picks the route per transaction.
+     * Lazy associations must therefore be loaded before a read-only transaction ends: a
+     * load after it takes a new connection outside any transaction, from the primary.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionReleaseCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                                            "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
@@ -0,0 +1,242 @@
+package com.icecreamshop.orderservice.config;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.repository.OrderJdbcWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order Seeder - Bulk loads a synthetic, production-shaped order history
+ * 
+ * Orders get ids 1..n and are generated in fixed chunks, each from its own seeded
+ * Random, so the same settings always produce the same data regardless of thread
+ * count. Workers claim chunks and write them with multi-row inserts, one
+ * transaction per chunk.
+ */
+@Component
+public class OrderSeeder {
+    
+    private static final int CHUNK_SIZE = 10_000;
+    
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Carol", "David", "Emma", "Frank", "Grace", "Henry",
+        "Isabel", "Jack", "Karen", "Liam", "Maria", "Noah", "Olivia", "Paul", "Quinn", "Rosa", "Sam", "Tina"};
+    private static final String[] LAST_NAMES = {"Johnson", "Smith", "Williams", "Brown", "Jones", "Garcia", "Miller",
+        "Davis", "Rodriguez", "Martinez", "Lopez", "Wilson", "Anderson", "Taylor", "Thomas", "Moore"};
+    private static final String[] STREETS = {"Oak Avenue", "Pine Street", "Elm Drive", "Maple Lane", "Cedar Road",
+        "Birch Way", "Willow Court", "Cherry Boulevard"};
+    private static final String[] CITIES = {"Sweet Town, ST 67890", "Flavor City, FC 13579", "Sundae City, SC 24680",
+        "Cream Valley, CV 35791", "Ice Cream City, IC 12345"};
+    private static final String[] TOPPINGS = {"Sprinkles", "Chocolate chips", "Nuts", "Hot fudge", "Whipped cream",
+        "Caramel", "Oreo pieces"};
+    
+    // Flavor popularity follows a long tail: vanilla and chocolate dominate
+    private static final String[] FLAVORS = {"Vanilla", "Chocolate", "Strawberry", "Cookies and Cream",
+        "Mint Chocolate Chip", "Rocky Road", "Butter Pecan", "Pistachio", "Salted Caramel", "Coffee"};
+    private static final double[] FLAVOR_WEIGHTS = {26, 22, 12, 10, 8, 7, 5, 4, 4, 2};
+    
+    private static final String[] SIZES = {"Small", "Medium", "Large"};
+    private static final double[] SIZE_WEIGHTS = {25, 45, 30};
+    private static final BigDecimal[] SIZE_PRICES = {new BigDecimal("3.99"), new BigDecimal("4.99"), new BigDecimal("5.99")};
+    
+    private static final double[] ITEM_COUNT_WEIGHTS = {50, 30, 15, 5};
+    
+    private static final PaymentMethod[] PAYMENT_METHODS = PaymentMethod.values();
+    private static final double[] PAYMENT_WEIGHTS = {40, 15, 12, 8, 5, 12, 8};
+    
+    // Afternoon and evening peaks, almost nothing overnight
+    private static final double[] HOUR_WEIGHTS = {1, 0.5, 0.2, 0.1, 0.1, 0.2, 0.5, 1, 2, 3, 4, 6,
+                                                  8, 9, 10, 10, 9, 8, 9, 10, 9, 6, 3, 2};
+    
+    // Orders older than a few hours have finished their lifecycle
+    private static final OrderStatus[] SETTLED = {OrderStatus.DELIVERED, OrderStatus.CANCELLED, OrderStatus.REFUNDED};
+    private static final double[] SETTLED_WEIGHTS = {88, 9, 3};
+    private static final OrderStatus[] ACTIVE = {OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING,
+        OrderStatus.READY, OrderStatus.OUT_FOR_DELIVERY, OrderStatus.DELIVERED, OrderStatus.CANCELLED};
+    private static final double[] ACTIVE_WEIGHTS = {15, 10, 15, 10, 15, 30, 5};
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private OrderJdbcWriter orderJdbcWriter;
+    
+    @Value("${icecream.seed.months:6}")
+    private int months;
+    
+    @Value("${icecream.seed.customers:0}")
+    private int customers;
+    
+    @Value("${icecream.seed.threads:0}")
+    private int threads;
+    
+    @Value("${icecream.seed.random-seed:42}")
+    private long randomSeed;
+    
+    /**
+     * Load the given number of orders into an empty database, returns rows per second
+     */
+    public double seed(long orders) throws Exception {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long customerCount = customers > 0 ? customers : Math.max(1, orders / 8);
+        int workerCount = threads > 0 ? threads : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+        long chunks = (orders + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        AtomicLong nextChunk = new AtomicLong();
+        
+        long started = System.nanoTime();
+        reserveIds(orders);
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(() -> {
+                    for (long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                        long firstId = chunk * CHUNK_SIZE + 1;
+                        long lastId = Math.min(orders, firstId + CHUNK_SIZE - 1);
+                        writeChunk(generate(firstId, lastId, customerCount, now));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        analyze();
+        
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double rowsPerSecond = orders / seconds;
+        System.out.printf("🍦 Seeded %,d orders in %.1fs (%,.0f rows/s, %d threads)%n",
+                          orders, seconds, rowsPerSecond, workerCount);
+        return rowsPerSecond;
+    }
+    
+    private void writeChunk(List<Order> orders) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                orderJdbcWriter.insert(connection, orders);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+    
+    /**
+     * Move the id sequence past the seeded range before any row is written
+     */
+    private void reserveIds(long orders) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            // Same rule as V3: each sequence value is the top of a pooled block of 50
+            statement.execute("ALTER SEQUENCE ice_cream_orders_seq RESTART WITH " + (orders + 50));
+        }
+    }
+    
+    /**
+     * Refresh optimizer statistics for the loaded tables
+     */
+    private void analyze() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+    
+    private List<Order> generate(long firstId, long lastId, long customerCount, LocalDateTime now) {
+        Random random = new Random(randomSeed ^ (firstId * 0x9E3779B97F4A7C15L));
+        long historySeconds = months * 30L * 24 * 3600;
+        List<Order> orders = new ArrayList<>((int) (lastId - firstId + 1));
+        for (long id = firstId; id <= lastId; id++) {
+            // A small set of regulars places most of the orders
+            long customer = (long) (customerCount * Math.pow(random.nextDouble(), 3));
+            String first = FIRST_NAMES[(int) (customer % FIRST_NAMES.length)];
+            String last = LAST_NAMES[(int) (customer / FIRST_NAMES.length % LAST_NAMES.length)];
+            
+            Order order = new Order();
+            order.setId(id);
+            order.setCustomerName(first + " " + last);
+            order.setCustomerEmail(first.toLowerCase() + "." + last.toLowerCase() + customer + "@email.com");
+            order.setCustomerPhone(String.format("+1-555-%03d-%04d", customer / 10_000 % 1000, customer % 10_000));
+            order.setDeliveryAddress((customer % 9000 + 100) + " " + STREETS[(int) (customer % STREETS.length)]
+                                     + ", " + CITIES[(int) (customer % CITIES.length)]);
+            
+            List<OrderItem> items = new ArrayList<>(4);
+            BigDecimal total = BigDecimal.ZERO;
+            int itemCount = pick(random, ITEM_COUNT_WEIGHTS) + 1;
+            for (int i = 0; i < itemCount; i++) {
+                int size = pick(random, SIZE_WEIGHTS);
+                OrderItem item = new OrderItem(FLAVORS[pick(random, FLAVOR_WEIGHTS)], SIZES[size],
+                                               random.nextInt(3) + 1, SIZE_PRICES[size],
+                                               random.nextInt(10) < 4 ? TOPPINGS[random.nextInt(TOPPINGS.length)] : null);
+                items.add(item);
+                total = total.add(item.getSubtotal());
+            }
+            order.setItems(items);
+            order.setTotalAmount(total);
+            
+            // Recent orders are skewed forward in time, with the daily hour-of-day curve
+            long daysAgo = (long) (historySeconds / 86_400 * Math.pow(random.nextDouble(), 1.5));
+            LocalDateTime createdAt = now.minusDays(daysAgo).truncatedTo(ChronoUnit.DAYS)
+                .plusHours(pick(random, HOUR_WEIGHTS))
+                .plusSeconds(random.nextInt(3600));
+            if (createdAt.isAfter(now)) {
+                createdAt = createdAt.minusDays(1);
+            }
+            boolean active = createdAt.isAfter(now.minusHours(3));
+            OrderStatus status = active ? ACTIVE[pick(random, ACTIVE_WEIGHTS)] : SETTLED[pick(random, SETTLED_WEIGHTS)];
+            order.setCreatedAt(createdAt);
+            order.setStatus(status);
+            order.setEstimatedDeliveryTime(createdAt.plusMinutes(45));
+            order.setUpdatedAt(status == OrderStatus.PENDING ? null : createdAt.plusMinutes(5 + random.nextInt(60)));
+            
+            PaymentMethod paymentMethod = PAYMENT_METHODS[pick(random, PAYMENT_WEIGHTS)];
+            order.setPaymentMethod(paymentMethod);
+            if (paymentMethod != PaymentMethod.CASH_ON_DELIVERY) {
+                order.setPaymentTransactionId("txn_" + Long.toHexString(id * 0x5DEECE66DL));
+            }
+            order.setVersion(0L);
+            orders.add(order);
+        }
+        return orders;
+    }
+    
+    private static int pick(Random random, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double roll = random.nextDouble() * total;
+        for (int i = 0; i < weights.length - 1; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
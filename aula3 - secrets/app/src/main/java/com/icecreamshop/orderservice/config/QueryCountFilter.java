@@ -0,0 +1,67 @@
+package com.icecreamshop.orderservice.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Query Count Filter - Records the SQL statements executed per HTTP request
+ * as the orders.http.statements metric and flags requests over the statement budget
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+    
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${icecream.query.statement-budget:10}")
+    private Integer statementBudget;
+    
+    // One summary per method and route, so recording skips the registry lookup
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = QueryCounter.current();
+            QueryCounter.clear();
+            record(request, statements);
+        }
+    }
+    
+    private void record(HttpServletRequest request, int statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+        summaries.computeIfAbsent(method + " " + uri, key -> DistributionSummary.builder("orders.http.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry))
+            .record(statements);
+        if (statements > statementBudget) {
+            log.warn("{} {} executed {} SQL statements (budget {})",
+                     request.getMethod(), uri, statements, statementBudget);
+        }
+    }
+}
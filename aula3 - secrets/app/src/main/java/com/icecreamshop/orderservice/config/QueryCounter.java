@@ -0,0 +1,51 @@
+package com.icecreamshop.orderservice.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Query Counter - Counts the SQL statements Hibernate prepares on the current thread
+ */
+@Component
+public class QueryCounter implements StatementInspector, HibernatePropertiesCustomizer {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+    
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+    
+    /**
+     * Start counting from zero on the current thread
+     */
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+    
+    /**
+     * Statements prepared on the current thread since the last reset
+     */
+    public static int current() {
+        return COUNT.get()[0];
+    }
+    
+    /**
+     * Stop counting and release the thread local
+     */
+    public static void clear() {
+        COUNT.remove();
+    }
+}
@@ -0,0 +1,78 @@
+package com.icecreamshop.orderservice.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Read/Write Routing DataSource - Hands out replica connections to read-only transactions
+ * of threads that may read from the replica, and primary connections to everything else
+ * 
+ * The route is chosen when a connection is first used, so it must sit behind a
+ * LazyConnectionDataSourceProxy: the transaction's read-only flag is only set after
+ * the transaction manager asked for a connection. Replica reads are opt-in per thread
+ * (ReadYourWritesFilter allows them for reads of clients that did not write recently):
+ * background jobs and startup rebuilds fill in-memory views and must see every commit,
+ * and Spring Data runs even sequence calls in read-only transactions, so by default
+ * every connection comes from the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public enum Route { PRIMARY, REPLICA }
+    
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+    
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+    
+    /**
+     * Route a connection taken now on the current thread would use
+     */
+    public static Route currentRoute() {
+        if (REPLICA_ALLOWED.get() != null && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+    
+    /**
+     * Let read-only transactions on the current thread use the replica until cleared
+     */
+    public static void allowReplica() {
+        REPLICA_ALLOWED.set(Boolean.TRUE);
+    }
+    
+    /**
+     * Send every connection of the current thread to the primary again
+     */
+    public static void clear() {
+        REPLICA_ALLOWED.remove();
+    }
+    
+    /**
+     * Run a read on the primary even where replica reads are allowed, for loads that fill
+     * a cache which commits invalidate (a lagging replica would cache the old state again)
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean allowed = REPLICA_ALLOWED.get();
+        REPLICA_ALLOWED.remove();
+        try {
+            return read.get();
+        } finally {
+            if (allowed != null) {
+                REPLICA_ALLOWED.set(allowed);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.icecreamshop.orderservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read Your Writes Filter - Lets reads use the replica, except for a while after the client wrote
+ * 
+ * Read requests may use the replica for their read-only transactions. Every POST, PUT,
+ * PATCH or DELETE sets a cookie with the time of the write, and requests carrying a cookie
+ * younger than icecream.datasource.read-your-writes-window stay on the primary, so a
+ * client never reads its own write from a replica that has not caught up yet. The cookie
+ * is set before the request runs (the body may already be committed afterwards), so a
+ * failed write keeps the client on the primary too, which is harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "icecream.datasource.routing.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    private static final String COOKIE = "icecream-last-write";
+    
+    @Value("${icecream.datasource.read-your-writes-window:5s}")
+    private Duration window;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean write = isWrite(request.getMethod());
+        if (write) {
+            response.addCookie(lastWriteCookie(request));
+        }
+        if (!write && !wroteRecently(request)) {
+            ReadWriteRoutingDataSource.allowReplica();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.clear();
+        }
+    }
+    
+    private static boolean isWrite(String method) {
+        switch (method) {
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    private boolean wroteRecently(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    long age = System.currentTimeMillis() - Long.parseLong(cookie.getValue());
+                    return age >= 0 && age < window.toMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private Cookie lastWriteCookie(HttpServletRequest request) {
+        Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis()));
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setMaxAge((int) Math.max(1, (window.toMillis() + 999) / 1000));
+        cookie.setHttpOnly(true);
+        return cookie;
+    }
+}
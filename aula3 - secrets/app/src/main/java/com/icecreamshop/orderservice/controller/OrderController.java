@@ -2,16 +2,33 @@ package com.icecreamshop.orderservice.controller;
 
 import com.icecreamshop.orderservice.model.Order;
 import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.service.FlavorInventory;
+import com.icecreamshop.orderservice.service.OrderExportService;
+import com.icecreamshop.orderservice.service.OrderIntakeUnavailableException;
+import com.icecreamshop.orderservice.service.OrderNotFoundException;
 import com.icecreamshop.orderservice.service.OrderService;
+import com.icecreamshop.orderservice.service.OrderStatusConflictException;
+import com.icecreamshop.orderservice.service.OutOfStockException;
+import com.icecreamshop.orderservice.service.RevenueRollup;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * Ice Cream Order REST Controller
@@ -19,12 +36,20 @@ import java.util.Optional;
  */
 @RestController
 @RequestMapping("/orders")
-@CrossOrigin(origins = "*") 
+@CrossOrigin(origins = "*", exposedHeaders = {OrderController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG}) 
 public class OrderController {
     
+    /**
+     * Response header carrying the cursor of the next page, absent on the last page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderExportService orderExportService;
+    
     @Value("${payment.stripe.secret.key}")
     private String stripeSecretKey;
     
@@ -35,53 +60,156 @@ public class OrderController {
     private String adminApiToken;
     
     /**
-     * Create a new ice cream order
+     * Create a new ice cream order, 202 Accepted when it is only queued for storage
      */
     @PostMapping
     public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order) {
         try {
             Order createdOrder = orderService.createOrder(order);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+            HttpStatus status = orderService.isAsyncIntake() ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+            return ResponseEntity.status(status)
+                .location(URI.create("/api/v1/orders/" + createdOrder.getId()))
+                .body(createdOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     /**
-     * Get all orders
+     * Create a batch of ice cream orders in one transaction, reporting each order's outcome
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<OrderService.BatchResult> createOrders(@RequestBody List<Order> orders) {
+        try {
+            OrderService.BatchResult result = orderService.createOrders(orders);
+            HttpStatus status = result.getRejected() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+            return ResponseEntity.status(status).body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Get all orders, one keyset page at a time
      */
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<?>> getAllOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            OrderFields selected = OrderFields.parse(fields);
+            if (selected != null && selected.isSummary()) {
+                return pageResponse(orderService.getOrderSummaries(null, null, cursor, limit), selected, request);
+            }
+            return pageResponse(orderService.getAllOrders(cursor, limit), selected, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Export orders as newline-delimited JSON, archived orders first (unless includeArchived=false),
+     * each streamed oldest first
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(defaultValue = "true") boolean includeArchived) {
+        StreamingResponseBody body = out -> orderExportService.exportOrders(from, to, status, includeArchived, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+    
+    /**
+     * Stream status changes of all orders, or of orders entering the given status, as Server-Sent Events
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderEvents(@RequestParam(required = false) OrderStatus status) {
+        return orderService.subscribeToStatusEvents(status);
     }
     
     /**
      * Get order by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        Optional<Order> order = orderService.getOrderById(id);
-        return order.map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getOrderById(@PathVariable Long id, WebRequest request) {
+        // Answer revalidation from the version alone, without loading or serializing the order
+        if (isConditional(request)) {
+            Optional<OrderService.OrderVersion> version = orderService.getOrderVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            if (request.checkNotModified(versionTag(version.get().getVersion()),
+                                         epochMillis(version.get().getLastModified()))) {
+                return null;
+            }
+        }
+        return orderService.getOrderJsonById(id)
+                   .map(order -> ResponseEntity.ok()
+                       .contentType(MediaType.APPLICATION_JSON)
+                       .eTag(versionTag(order.getVersion()))
+                       .lastModified(epochMillis(order.getLastModified()))
+                       .body(order.getJson()))
                    .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Stream status changes of one order as Server-Sent Events, starting with its current status
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(orderService.subscribeToOrderEvents(id));
+        } catch (OrderNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
     /**
      * Get orders by customer email
      */
     @GetMapping("/customer/{email}")
-    public ResponseEntity<List<Order>> getOrdersByCustomerEmail(@PathVariable String email) {
-        List<Order> orders = orderService.getOrdersByCustomerEmail(email);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<?>> getOrdersByCustomerEmail(
+            @PathVariable String email,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            OrderFields selected = OrderFields.parse(fields);
+            if (selected != null && selected.isSummary()) {
+                return pageResponse(orderService.getOrderSummaries(null, email, cursor, limit), selected, request);
+            }
+            return pageResponse(orderService.getOrdersByCustomerEmail(email, cursor, limit), selected, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * Get orders by status
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable OrderStatus status) {
-        List<Order> orders = orderService.getOrdersByStatus(status);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<?>> getOrdersByStatus(
+            @PathVariable OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            OrderFields selected = OrderFields.parse(fields);
+            if (selected != null && selected.isSummary()) {
+                return pageResponse(orderService.getOrderSummaries(status, null, cursor, limit), selected, request);
+            }
+            return pageResponse(orderService.getOrdersByStatus(status, cursor, limit), selected, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
@@ -90,12 +218,31 @@ public class OrderController {
     @PatchMapping("/{id}/status")
     public ResponseEntity<Order> updateOrderStatus(
             @PathVariable Long id, 
-            @RequestParam OrderStatus status) {
+            @RequestParam OrderStatus status,
+            @RequestParam(required = false) OrderStatus expectedStatus,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         try {
-            Order updatedOrder = orderService.updateOrderStatus(id, status);
-            return ResponseEntity.ok(updatedOrder);
-        } catch (RuntimeException e) {
+            Order updatedOrder = orderService.updateOrderStatus(id, status, expectedStatus, parseVersion(ifMatch));
+            return ResponseEntity.ok().eTag(versionTag(updatedOrder.getVersion())).body(updatedOrder);
+        } catch (OrderNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Move many orders to a new status, selected by ids and/or current status
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<OrderService.BulkTransitionResult> updateOrderStatuses(
+            @RequestBody BulkStatusUpdate update) {
+        try {
+            OrderService.BulkTransitionResult result = orderService.transitionOrders(
+                update.getIds(), update.getFromStatus(), update.getToStatus());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
     
@@ -107,7 +254,7 @@ public class OrderController {
         try {
             Order cancelledOrder = orderService.cancelOrder(id);
             return ResponseEntity.ok(cancelledOrder);
-        } catch (RuntimeException e) {
+        } catch (OrderNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -120,27 +267,60 @@ public class OrderController {
         try {
             Order deliveredOrder = orderService.markAsDelivered(id);
             return ResponseEntity.ok(deliveredOrder);
-        } catch (RuntimeException e) {
+        } catch (OrderNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     /**
-     * Get recent orders
+     * Get recent orders, newest first (default: last 24 hours)
      */
     @GetMapping("/recent")
-    public ResponseEntity<List<Order>> getRecentOrders() {
-        List<Order> orders = orderService.getRecentOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<?>> getRecentOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            return pageResponse(orderService.getRecentOrders(since, cursor, limit), OrderFields.parse(fields), request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * Search orders by customer name
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Order>> searchOrders(@RequestParam String customerName) {
-        List<Order> orders = orderService.searchOrdersByCustomerName(customerName);
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<List<?>> searchOrders(
+            @RequestParam String customerName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            return pageResponse(orderService.searchOrdersByCustomerName(customerName, cursor, limit), OrderFields.parse(fields), request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Search orders by delivery address
+     */
+    @GetMapping("/search/address")
+    public ResponseEntity<List<?>> searchOrdersByAddress(
+            @RequestParam String address,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        try {
+            return pageResponse(orderService.searchOrdersByDeliveryAddress(address, cursor, limit), OrderFields.parse(fields), request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
@@ -152,6 +332,45 @@ public class OrderController {
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * Get revenue per hour, day or in total, optionally by flavor, size and payment method
+     */
+    @GetMapping("/analytics/revenue")
+    public ResponseEntity<RevenueRollup.RevenueReport> getRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) String groupBy) {
+        try {
+            return ResponseEntity.ok(orderService.getRevenueReport(from, to, granularity, groupBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Get the stock of every tracked flavor and size
+     */
+    @GetMapping("/inventory")
+    public ResponseEntity<List<FlavorInventory.StockLevel>> getInventory() {
+        return ResponseEntity.ok(orderService.getInventory());
+    }
+    
+    /**
+     * Set the stock of a flavor and size; flavors and sizes never set are not limited
+     */
+    @PutMapping("/inventory")
+    public ResponseEntity<FlavorInventory.StockLevel> setStock(
+            @RequestParam String flavor,
+            @RequestParam String size,
+            @RequestParam long available) {
+        try {
+            return ResponseEntity.ok(orderService.setStock(flavor, size, available));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * Debug configuration
      */
@@ -174,6 +393,210 @@ public class OrderController {
         return ResponseEntity.ok(credentials);
     }
     
+    /**
+     * Report a rejected or lost status transition with the order's current state
+     */
+    @ExceptionHandler(OrderStatusConflictException.class)
+    public ResponseEntity<StatusConflict> handleStatusConflict(OrderStatusConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new StatusConflict(e));
+    }
+    
+    /**
+     * Report the item an order could not get enough stock for
+     */
+    @ExceptionHandler(OutOfStockException.class)
+    public ResponseEntity<StockShortage> handleOutOfStock(OutOfStockException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new StockShortage(e));
+    }
+    
+    /**
+     * Ask the client to retry when the order intake is full or did not commit in time
+     */
+    @ExceptionHandler(OrderIntakeUnavailableException.class)
+    public ResponseEntity<Void> handleIntakeUnavailable(OrderIntakeUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+    
+    /**
+     * Order version from an If-Match header, which may be quoted or weak
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
+        }
+        version = version.replace("\"", "");
+        try {
+            return Long.valueOf(version);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match version: " + ifMatch, e);
+        }
+    }
+    
+    /**
+     * Write a page of orders as the response body, with the next cursor as a header,
+     * restricted to the requested fields when there are any
+     */
+    private ResponseEntity<List<?>> pageResponse(OrderService.OrderPage page, OrderFields fields,
+                                                 WebRequest request) {
+        PageValidator validator = new PageValidator(fields);
+        page.getOrders().forEach(order -> validator.add(
+            order.getId(), order.getVersion(), order.getCreatedAt(), order.getUpdatedAt()));
+        return conditionalPage(validator, page.getNextCursor(), request, () -> fields == null
+            ? page.getOrders()
+            : page.getOrders().stream().map(fields::select).toList());
+    }
+    
+    /**
+     * Write a page of order summaries restricted to the requested fields
+     */
+    private ResponseEntity<List<?>> pageResponse(OrderService.SummaryPage page, OrderFields fields,
+                                                 WebRequest request) {
+        PageValidator validator = new PageValidator(fields);
+        page.getSummaries().forEach(summary -> validator.add(
+            summary.getId(), summary.getVersion(), summary.getCreatedAt(), summary.getUpdatedAt()));
+        return conditionalPage(validator, page.getNextCursor(), request,
+            () -> page.getSummaries().stream().map(fields::select).toList());
+    }
+    
+    /**
+     * Answer an unchanged page with 304 before its body is built and serialized
+     */
+    private ResponseEntity<List<?>> conditionalPage(PageValidator validator, String nextCursor,
+                                                    WebRequest request, Supplier<List<?>> body) {
+        String etag = validator.etag(nextCursor);
+        LocalDateTime lastModified = validator.lastModified;
+        long lastModifiedMillis = lastModified == null ? -1 : epochMillis(lastModified);
+        if (request.checkNotModified(etag, lastModifiedMillis)) {
+            return null;
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (lastModified != null) {
+            response.lastModified(lastModifiedMillis);
+        }
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(body.get());
+    }
+    
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+            || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+    
+    /**
+     * Strong ETag of one order, its version, which PATCH accepts back as If-Match
+     */
+    private static String versionTag(Long version) {
+        return "\"" + version + "\"";
+    }
+    
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * Validators of a page: an ETag hashed from the fieldset, each order's id and version
+     * and the next cursor, and the latest change among the orders as Last-Modified
+     */
+    private static class PageValidator {
+        private long hash = 1125899906842597L;
+        private LocalDateTime lastModified;
+        
+        PageValidator(OrderFields fields) {
+            if (fields != null) {
+                hash = 31 * hash + fields.toString().hashCode();
+            }
+        }
+        
+        void add(Long id, Long version, LocalDateTime createdAt, LocalDateTime updatedAt) {
+            hash = 31 * hash + id;
+            hash = 31 * hash + (version == null ? 0 : version);
+            LocalDateTime modified = updatedAt != null ? updatedAt : createdAt;
+            if (lastModified == null || modified.isAfter(lastModified)) {
+                lastModified = modified;
+            }
+        }
+        
+        String etag(String nextCursor) {
+            long tag = nextCursor == null ? hash : 31 * hash + nextCursor.hashCode();
+            return "\"" + Long.toHexString(tag) + "\"";
+        }
+    }
+    
+    /**
+     * Bulk status transition request
+     */
+    public static class BulkStatusUpdate {
+        private List<Long> ids;
+        private OrderStatus fromStatus;
+        private OrderStatus toStatus;
+        
+        public List<Long> getIds() { return ids; }
+        public void setIds(List<Long> ids) { this.ids = ids; }
+        
+        public OrderStatus getFromStatus() { return fromStatus; }
+        public void setFromStatus(OrderStatus fromStatus) { this.fromStatus = fromStatus; }
+        
+        public OrderStatus getToStatus() { return toStatus; }
+        public void setToStatus(OrderStatus toStatus) { this.toStatus = toStatus; }
+    }
+    
+    /**
+     * Status conflict response
+     */
+    public static class StatusConflict {
+        private final Long orderId;
+        private final OrderStatus currentStatus;
+        private final Long currentVersion;
+        private final OrderStatus requestedStatus;
+        private final String message;
+        
+        public StatusConflict(OrderStatusConflictException e) {
+            this.orderId = e.getOrderId();
+            this.currentStatus = e.getCurrentStatus();
+            this.currentVersion = e.getCurrentVersion();
+            this.requestedStatus = e.getRequestedStatus();
+            this.message = e.getMessage();
+        }
+        
+        public Long getOrderId() { return orderId; }
+        public OrderStatus getCurrentStatus() { return currentStatus; }
+        public Long getCurrentVersion() { return currentVersion; }
+        public OrderStatus getRequestedStatus() { return requestedStatus; }
+        public String getMessage() { return message; }
+    }
+    
+    /**
+     * Out of stock response body
+     */
+    public static class StockShortage {
+        private final String flavor;
+        private final String size;
+        private final long requested;
+        private final long available;
+        private final String message;
+        
+        public StockShortage(OutOfStockException e) {
+            this.flavor = e.getFlavor();
+            this.size = e.getSize();
+            this.requested = e.getRequested();
+            this.available = e.getAvailable();
+            this.message = e.getMessage();
+        }
+        
+        public String getFlavor() { return flavor; }
+        public String getSize() { return size; }
+        public long getRequested() { return requested; }
+        public long getAvailable() { return available; }
+        public String getMessage() { return message; }
+    }
+    
     /**
      * Debug configuration class
      */
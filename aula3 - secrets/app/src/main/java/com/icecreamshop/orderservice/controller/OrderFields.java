@@ -0,0 +1,99 @@
+package com.icecreamshop.orderservice.controller;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderSummary;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Order Fields - The sparse fieldset requested with ?fields= on list endpoints
+ * 
+ * Rows are written as maps holding only the requested properties, in request order.
+ * Getters of fields that were not requested are never called, so the lazy items
+ * collection of an entity is only loaded when items is requested. When every field
+ * is part of OrderSummary, the page can be read as summaries instead of entities.
+ */
+public final class OrderFields {
+    
+    private static final Map<String, Function<Order, Object>> ORDER_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, Function<OrderSummary, Object>> SUMMARY_FIELDS = new LinkedHashMap<>();
+    
+    static {
+        ORDER_FIELDS.put("id", Order::getId);
+        ORDER_FIELDS.put("customerName", Order::getCustomerName);
+        ORDER_FIELDS.put("customerEmail", Order::getCustomerEmail);
+        ORDER_FIELDS.put("customerPhone", Order::getCustomerPhone);
+        ORDER_FIELDS.put("deliveryAddress", Order::getDeliveryAddress);
+        ORDER_FIELDS.put("items", Order::getItems);
+        ORDER_FIELDS.put("totalAmount", Order::getTotalAmount);
+        ORDER_FIELDS.put("status", Order::getStatus);
+        ORDER_FIELDS.put("paymentMethod", Order::getPaymentMethod);
+        ORDER_FIELDS.put("paymentTransactionId", Order::getPaymentTransactionId);
+        ORDER_FIELDS.put("specialInstructions", Order::getSpecialInstructions);
+        ORDER_FIELDS.put("estimatedDeliveryTime", Order::getEstimatedDeliveryTime);
+        ORDER_FIELDS.put("createdAt", Order::getCreatedAt);
+        ORDER_FIELDS.put("updatedAt", Order::getUpdatedAt);
+        ORDER_FIELDS.put("version", Order::getVersion);
+        
+        SUMMARY_FIELDS.put("id", OrderSummary::getId);
+        SUMMARY_FIELDS.put("status", OrderSummary::getStatus);
+        SUMMARY_FIELDS.put("customerName", OrderSummary::getCustomerName);
+        SUMMARY_FIELDS.put("totalAmount", OrderSummary::getTotalAmount);
+        SUMMARY_FIELDS.put("estimatedDeliveryTime", OrderSummary::getEstimatedDeliveryTime);
+        SUMMARY_FIELDS.put("createdAt", OrderSummary::getCreatedAt);
+        SUMMARY_FIELDS.put("updatedAt", OrderSummary::getUpdatedAt);
+        SUMMARY_FIELDS.put("version", OrderSummary::getVersion);
+    }
+    
+    private final Set<String> names;
+    
+    private OrderFields(Set<String> names) {
+        this.names = names;
+    }
+    
+    /**
+     * Parse a comma-separated field list, null when absent so callers return full orders
+     */
+    public static OrderFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String field = name.trim();
+            if (!ORDER_FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            names.add(field);
+        }
+        return new OrderFields(names);
+    }
+    
+    /**
+     * Whether every requested field is available from an OrderSummary
+     */
+    public boolean isSummary() {
+        return SUMMARY_FIELDS.keySet().containsAll(names);
+    }
+    
+    public Map<String, Object> select(Order order) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        names.forEach(name -> row.put(name, ORDER_FIELDS.get(name).apply(order)));
+        return row;
+    }
+    
+    public Map<String, Object> select(OrderSummary summary) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        names.forEach(name -> row.put(name, SUMMARY_FIELDS.get(name).apply(summary)));
+        return row;
+    }
+    
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
@@ -2,9 +2,11 @@ package com.icecreamshop.orderservice.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Ice Cream Order Entity
@@ -14,18 +16,30 @@ import java.util.List;
 @Table(name = "ice_cream_orders")
 public class Order {
     
+    /**
+     * Ids handed out per sequence value; each value is the top of a block of this many ids
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
+    // Pooled sequence ids keep JDBC insert batching available (IDENTITY disables it)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_id_seq")
+    @SequenceGenerator(name = "order_id_seq", sequenceName = "ice_cream_orders_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @NotBlank(message = "Customer name is required")
     @Column(name = "customer_name", nullable = false)
     private String customerName;
     
+    @NotBlank(message = "Customer email is required")
     @Email(message = "Valid email is required")
     @Column(name = "customer_email", nullable = false)
     private String customerEmail;
     
+    // Indexed lookup key for customerEmail, kept in sync by setCustomerEmail
+    @Column(name = "customer_email_normalized", nullable = false)
+    private String customerEmailNormalized;
+    
     @NotBlank(message = "Phone number is required")
     @Column(name = "customer_phone")
     private String customerPhone;
@@ -34,7 +48,9 @@ public class Order {
     @Column(name = "delivery_address", nullable = false, length = 500)
     private String deliveryAddress;
     
+    // Lists load items for up to a page of orders per query instead of one query per order
     @ElementCollection
+    @BatchSize(size = 100)
     @CollectionTable(name = "order_items", joinColumns = @JoinColumn(name = "order_id"))
     private List<OrderItem> items;
     
@@ -66,13 +82,18 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Left null until inserted, so Spring Data still recognises new orders and persists them
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructors
     public Order() {}
     
     public Order(String customerName, String customerEmail, String customerPhone, 
                 String deliveryAddress, List<OrderItem> items, BigDecimal totalAmount) {
         this.customerName = customerName;
-        this.customerEmail = customerEmail;
+        setCustomerEmail(customerEmail);
         this.customerPhone = customerPhone;
         this.deliveryAddress = deliveryAddress;
         this.items = items;
@@ -88,7 +109,10 @@ public class Order {
     public void setCustomerName(String customerName) { this.customerName = customerName; }
     
     public String getCustomerEmail() { return customerEmail; }
-    public void setCustomerEmail(String customerEmail) { this.customerEmail = customerEmail; }
+    public void setCustomerEmail(String customerEmail) {
+        this.customerEmail = customerEmail;
+        this.customerEmailNormalized = normalizeEmail(customerEmail);
+    }
     
     public String getCustomerPhone() { return customerPhone; }
     public void setCustomerPhone(String customerPhone) { this.customerPhone = customerPhone; }
@@ -123,8 +147,24 @@ public class Order {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    @PrePersist
+    protected void onCreate() {
+        this.customerEmailNormalized = normalizeEmail(customerEmail);
+    }
+    
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
+        this.customerEmailNormalized = normalizeEmail(customerEmail);
+    }
+    
+    /**
+     * Canonical form of an email address used for lookups
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
     }
 }
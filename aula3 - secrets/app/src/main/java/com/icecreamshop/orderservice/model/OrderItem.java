@@ -1,5 +1,6 @@
 package com.icecreamshop.orderservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Embeddable;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
@@ -25,6 +26,10 @@ public class OrderItem {
     
     private String toppings;
     
+    // Set by FlavorInventory when the line's stock was reserved, never by clients
+    @JsonIgnore
+    private boolean stockReserved;
+    
     // Constructors
     public OrderItem() {}
     
@@ -56,6 +61,9 @@ public class OrderItem {
     public String getToppings() { return toppings; }
     public void setToppings(String toppings) { this.toppings = toppings; }
     
+    public boolean isStockReserved() { return stockReserved; }
+    public void setStockReserved(boolean stockReserved) { this.stockReserved = stockReserved; }
+    
     // Business logic
     public BigDecimal getSubtotal() {
         return unitPrice != null && quantity != null ? 
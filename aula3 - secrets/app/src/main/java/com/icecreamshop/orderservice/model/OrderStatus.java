@@ -22,4 +22,34 @@ public enum OrderStatus {
     public String getDescription() {
         return description;
     }
+    
+    /**
+     * Whether an order in this status may move to the next status
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        switch (this) {
+            case PENDING:
+                return next == CONFIRMED || next == PREPARING || next == CANCELLED;
+            case CONFIRMED:
+                return next == PREPARING || next == CANCELLED;
+            case PREPARING:
+                return next == READY || next == CANCELLED;
+            case READY:
+                return next == OUT_FOR_DELIVERY || next == DELIVERED || next == CANCELLED;
+            case OUT_FOR_DELIVERY:
+                return next == DELIVERED || next == CANCELLED;
+            case DELIVERED:
+            case CANCELLED:
+                return next == REFUNDED;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Whether the order lifecycle has ended (only a refund may follow)
+     */
+    public boolean isTerminal() {
+        return this == DELIVERED || this == CANCELLED || this == REFUNDED;
+    }
 }
@@ -0,0 +1,46 @@
+package com.icecreamshop.orderservice.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order Summary - Read-only projection of the order columns list consumers usually need
+ * 
+ * Selected with a JPQL constructor expression, so neither the remaining order columns
+ * nor the order items are read. createdAt, updatedAt and version are included for
+ * keyset cursors and conditional requests.
+ */
+public class OrderSummary {
+    
+    private final Long id;
+    private final OrderStatus status;
+    private final String customerName;
+    private final BigDecimal totalAmount;
+    private final LocalDateTime estimatedDeliveryTime;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+    
+    public OrderSummary(Long id, OrderStatus status, String customerName, BigDecimal totalAmount,
+                        LocalDateTime estimatedDeliveryTime, LocalDateTime createdAt,
+                        LocalDateTime updatedAt, Long version) {
+        this.id = id;
+        this.status = status;
+        this.customerName = customerName;
+        this.totalAmount = totalAmount;
+        this.estimatedDeliveryTime = estimatedDeliveryTime;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public OrderStatus getStatus() { return status; }
+    public String getCustomerName() { return customerName; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public LocalDateTime getEstimatedDeliveryTime() { return estimatedDeliveryTime; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
+}
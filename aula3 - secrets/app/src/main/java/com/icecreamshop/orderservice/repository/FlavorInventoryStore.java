@@ -0,0 +1,35 @@
+package com.icecreamshop.orderservice.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Flavor Inventory Store - Stock levels per flavor and size in flavor_inventory
+ */
+@Component
+public class FlavorInventoryStore {
+    
+    private static final String UPSERT = "MERGE INTO flavor_inventory (flavor, size, available, updated_at) "
+        + "KEY (flavor, size) VALUES (?, ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Every stored level as (flavor, size, available)
+     */
+    public List<Object[]> findAll() {
+        return jdbcTemplate.query("SELECT flavor, size, available FROM flavor_inventory",
+            (rs, rowNum) -> new Object[] {rs.getString(1), rs.getString(2), rs.getLong(3)});
+    }
+    
+    /**
+     * Insert or update levels given as (flavor, size, available, updatedAt) in one JDBC batch
+     */
+    public void saveAll(List<Object[]> levels) {
+        jdbcTemplate.batchUpdate(UPSERT, levels);
+    }
+}
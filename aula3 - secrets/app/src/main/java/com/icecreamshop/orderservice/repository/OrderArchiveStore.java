@@ -0,0 +1,282 @@
+package com.icecreamshop.orderservice.repository;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.OrderSummary;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Order Archive Store - Orders moved out of ice_cream_orders into ice_cream_orders_archive
+ * 
+ * Moves orders with their items between the live and archive tables with INSERT ... SELECT
+ * and reads archived orders back as detached Order objects. The union reads cover both
+ * tables in a single statement, so an order being moved is never counted twice or missed.
+ * The caller owns the transaction of a move.
+ */
+@Component
+public class OrderArchiveStore {
+    
+    private static final String ORDER_COLUMNS = "id, customer_name, customer_email, customer_email_normalized, "
+        + "customer_phone, delivery_address, total_amount, status, payment_method, payment_transaction_id, "
+        + "special_instructions, estimated_delivery_time, created_at, updated_at, version";
+    private static final String ITEM_COLUMNS = "order_id, flavor, size, quantity, unit_price, toppings, stock_reserved";
+    
+    private static final String KEYSET_BEFORE = "(created_at < :createdAt OR (created_at = :createdAt AND id < :id)) "
+        + "ORDER BY created_at DESC, id DESC LIMIT :limit";
+    private static final String KEYSET_AFTER = "(created_at > :createdAt OR (created_at = :createdAt AND id > :id)) "
+        + "ORDER BY created_at, id LIMIT :limit";
+    
+    private static final RowMapper<Order> ORDER_ROW = OrderArchiveStore::order;
+    private static final RowMapper<Object[]> SEARCHABLE_ROW = (rs, rowNum) ->
+        new Object[] {rs.getLong(1), rs.getString(2), rs.getString(3)};
+    
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    
+    // Moving orders - lock, copy, delete, all in the caller's transaction
+    
+    /**
+     * Lock up to limit orders in one of the given statuses last changed before the cutoff,
+     * oldest first, returned as (id, customerName, deliveryAddress)
+     */
+    public List<Object[]> lockArchivable(Collection<String> statuses, LocalDateTime cutoff, int limit) {
+        // created_at < cutoff is implied by the second condition but lets the (status, created_at) index bound the scan
+        return jdbcTemplate.query("SELECT id, customer_name, delivery_address FROM ice_cream_orders "
+                + "WHERE status IN (:statuses) AND created_at < :cutoff AND COALESCE(updated_at, created_at) < :cutoff "
+                + "ORDER BY created_at, id LIMIT :limit FOR UPDATE",
+            new MapSqlParameterSource("statuses", statuses)
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", limit),
+            SEARCHABLE_ROW);
+    }
+    
+    /**
+     * Move the given live orders and their items to the archive, returns the number of orders moved
+     */
+    public int archive(Collection<Long> ids, LocalDateTime archivedAt) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+            .addValue("archivedAt", Timestamp.valueOf(archivedAt));
+        jdbcTemplate.update("INSERT INTO ice_cream_orders_archive (" + ORDER_COLUMNS + ", archived_at) "
+            + "SELECT " + ORDER_COLUMNS + ", :archivedAt FROM ice_cream_orders WHERE id IN (:ids)", params);
+        jdbcTemplate.update("INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") "
+            + "SELECT " + ITEM_COLUMNS + " FROM order_items WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (:ids)", params);
+        return jdbcTemplate.update("DELETE FROM ice_cream_orders WHERE id IN (:ids)", params);
+    }
+    
+    /**
+     * Move those of the given orders that are archived back to the live tables,
+     * returned as (id, customerName, deliveryAddress)
+     */
+    public List<Object[]> restore(Collection<Long> ids) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        List<Object[]> restored = jdbcTemplate.query("SELECT id, customer_name, delivery_address "
+            + "FROM ice_cream_orders_archive WHERE id IN (:ids) FOR UPDATE", params, SEARCHABLE_ROW);
+        if (restored.isEmpty()) {
+            return restored;
+        }
+        params.addValue("ids", restored.stream().map(row -> (Long) row[0]).toList());
+        jdbcTemplate.update("INSERT INTO ice_cream_orders (" + ORDER_COLUMNS + ") "
+            + "SELECT " + ORDER_COLUMNS + " FROM ice_cream_orders_archive WHERE id IN (:ids)", params);
+        jdbcTemplate.update("INSERT INTO order_items (" + ITEM_COLUMNS + ") "
+            + "SELECT " + ITEM_COLUMNS + " FROM order_items_archive WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM order_items_archive WHERE order_id IN (:ids)", params);
+        jdbcTemplate.update("DELETE FROM ice_cream_orders_archive WHERE id IN (:ids)", params);
+        return restored;
+    }
+    
+    // Archived orders - lookups that missed the live table
+    
+    public Optional<Order> findById(Long id) {
+        return findAllById(List.of(id)).stream().findFirst();
+    }
+    
+    /**
+     * Archived orders with the given ids, with their items, in no particular order
+     */
+    public List<Order> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return withItems(jdbcTemplate.query("SELECT " + ORDER_COLUMNS + " FROM ice_cream_orders_archive "
+            + "WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids), ORDER_ROW));
+    }
+    
+    /**
+     * Page through archived orders by normalized customer email, newest first
+     */
+    public List<Order> findPageByCustomerEmail(String email, LocalDateTime createdAt, Long id, int limit) {
+        return withItems(jdbcTemplate.query("SELECT " + ORDER_COLUMNS + " FROM ice_cream_orders_archive "
+            + "WHERE customer_email_normalized = :email AND " + KEYSET_BEFORE,
+            keyset(createdAt, id, limit).addValue("email", email), ORDER_ROW));
+    }
+    
+    /**
+     * Next export chunk of archived orders created before the given time, optionally with
+     * the given status, strictly after the (createdAt, id) cursor and oldest first
+     */
+    public List<Order> findExportChunk(OrderStatus status, LocalDateTime to, LocalDateTime createdAt, Long id,
+                                       int limit) {
+        MapSqlParameterSource params = keyset(createdAt, id, limit).addValue("to", Timestamp.valueOf(to));
+        String statusFilter = "";
+        if (status != null) {
+            params.addValue("status", status.name());
+            statusFilter = "status = :status AND ";
+        }
+        return withItems(jdbcTemplate.query("SELECT " + ORDER_COLUMNS + " FROM ice_cream_orders_archive "
+            + "WHERE " + statusFilter + "created_at < :to AND " + KEYSET_AFTER, params, ORDER_ROW));
+    }
+    
+    /**
+     * Page through summaries of archived orders by normalized customer email, newest first
+     */
+    public List<OrderSummary> findSummaryPageByCustomerEmail(String email, LocalDateTime createdAt, Long id,
+                                                             int limit) {
+        return jdbcTemplate.query("SELECT id, status, customer_name, total_amount, estimated_delivery_time, "
+                + "created_at, updated_at, version FROM ice_cream_orders_archive "
+                + "WHERE customer_email_normalized = :email AND " + KEYSET_BEFORE,
+            keyset(createdAt, id, limit).addValue("email", email),
+            (rs, rowNum) -> new OrderSummary(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)), rs.getString(3),
+                rs.getBigDecimal(4), localDateTime(rs, 5), localDateTime(rs, 6), localDateTime(rs, 7), rs.getLong(8)));
+    }
+    
+    /**
+     * Version and last modification time of one archived order
+     */
+    public List<Object[]> findVersionAndLastModifiedById(Long id) {
+        return jdbcTemplate.query("SELECT version, COALESCE(updated_at, created_at) FROM ice_cream_orders_archive "
+                + "WHERE id = :id", new MapSqlParameterSource("id", id),
+            (rs, rowNum) -> new Object[] {rs.getLong(1), localDateTime(rs, 2)});
+    }
+    
+    // Union reads - live and archived orders together
+    
+    /**
+     * Count orders of every status, as (status, count)
+     */
+    public List<Object[]> countGroupedByStatus() {
+        return jdbcTemplate.query("SELECT status, COUNT(*) FROM (SELECT status FROM ice_cream_orders "
+                + "UNION ALL SELECT status FROM ice_cream_orders_archive) orders GROUP BY status",
+            (rs, rowNum) -> new Object[] {OrderStatus.valueOf(rs.getString(1)), rs.getLong(2)});
+    }
+    
+    /**
+     * Item quantities and amounts of orders created since the given time, grouped by creation
+     * hour, payment method, status, flavor and size, as (hour, paymentMethod, status, flavor,
+     * size, quantity, amount)
+     */
+    public List<Object[]> sumItemsByHourSince(LocalDateTime since) {
+        String lines = "SELECT o.created_at, o.payment_method, o.status, i.flavor, i.size, i.quantity, i.unit_price "
+            + "FROM %s o JOIN %s i ON i.order_id = o.id WHERE o.created_at >= :since";
+        return jdbcTemplate.query("SELECT DATE_TRUNC('HOUR', created_at), payment_method, status, flavor, size, "
+                + "SUM(quantity), SUM(quantity * unit_price) FROM ("
+                + lines.formatted("ice_cream_orders", "order_items") + " UNION ALL "
+                + lines.formatted("ice_cream_orders_archive", "order_items_archive") + ") lines "
+                + "GROUP BY DATE_TRUNC('HOUR', created_at), payment_method, status, flavor, size",
+            new MapSqlParameterSource("since", Timestamp.valueOf(since)),
+            (rs, rowNum) -> new Object[] {
+                localDateTime(rs, 1),
+                rs.getString(2) == null ? null : PaymentMethod.valueOf(rs.getString(2)),
+                OrderStatus.valueOf(rs.getString(3)),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getLong(6),
+                rs.getBigDecimal(7)});
+    }
+    
+    /**
+     * Normalized customer email of orders after the given id, as (id, email), used to build the customer index
+     */
+    public List<Object[]> findCustomerEmailsAfter(Long id, int limit) {
+        return jdbcTemplate.query("SELECT id, customer_email_normalized FROM ("
+                + "SELECT id, customer_email_normalized FROM ice_cream_orders WHERE id > :id UNION ALL "
+                + "SELECT id, customer_email_normalized FROM ice_cream_orders_archive WHERE id > :id"
+                + ") emails ORDER BY id LIMIT :limit",
+            new MapSqlParameterSource("id", id).addValue("limit", limit),
+            (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2)});
+    }
+    
+    /**
+     * Keyset position and normalized customer email of the given orders, as (id, createdAt, email),
+     * used to load customer histories
+     */
+    public List<Object[]> findHistoryKeysByIdIn(Collection<Long> ids) {
+        return jdbcTemplate.query("SELECT id, created_at, customer_email_normalized FROM ice_cream_orders "
+                + "WHERE id IN (:ids) UNION ALL "
+                + "SELECT id, created_at, customer_email_normalized FROM ice_cream_orders_archive WHERE id IN (:ids)",
+            new MapSqlParameterSource("ids", ids),
+            (rs, rowNum) -> new Object[] {rs.getLong(1), localDateTime(rs, 2), rs.getString(3)});
+    }
+    
+    private List<Order> withItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, Order> byId = new HashMap<>();
+        for (Order order : orders) {
+            order.setItems(new ArrayList<>());
+            byId.put(order.getId(), order);
+        }
+        jdbcTemplate.query("SELECT " + ITEM_COLUMNS + " FROM order_items_archive WHERE order_id IN (:ids)",
+            new MapSqlParameterSource("ids", byId.keySet()),
+            rs -> {
+                Integer quantity = rs.getObject(4) == null ? null : rs.getInt(4);
+                byId.get(rs.getLong(1)).getItems().add(new OrderItem(
+                    rs.getString(2), rs.getString(3), quantity, rs.getBigDecimal(5), rs.getString(6)));
+            });
+        return orders;
+    }
+    
+    private static MapSqlParameterSource keyset(LocalDateTime createdAt, Long id, int limit) {
+        return new MapSqlParameterSource("createdAt", Timestamp.valueOf(createdAt))
+            .addValue("id", id)
+            .addValue("limit", limit);
+    }
+    
+    private static Order order(ResultSet rs, int rowNum) throws SQLException {
+        Order order = new Order();
+        order.setId(rs.getLong("id"));
+        order.setCustomerName(rs.getString("customer_name"));
+        order.setCustomerEmail(rs.getString("customer_email"));
+        order.setCustomerPhone(rs.getString("customer_phone"));
+        order.setDeliveryAddress(rs.getString("delivery_address"));
+        order.setTotalAmount(rs.getBigDecimal("total_amount"));
+        order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+        String paymentMethod = rs.getString("payment_method");
+        order.setPaymentMethod(paymentMethod == null ? null : PaymentMethod.valueOf(paymentMethod));
+        order.setPaymentTransactionId(rs.getString("payment_transaction_id"));
+        order.setSpecialInstructions(rs.getString("special_instructions"));
+        order.setEstimatedDeliveryTime(localDateTime(rs, "estimated_delivery_time"));
+        order.setCreatedAt(localDateTime(rs, "created_at"));
+        order.setUpdatedAt(localDateTime(rs, "updated_at"));
+        order.setVersion(rs.getLong("version"));
+        return order;
+    }
+    
+    private static LocalDateTime localDateTime(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime();
+    }
+    
+    private static LocalDateTime localDateTime(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime();
+    }
+}
@@ -0,0 +1,158 @@
+package com.icecreamshop.orderservice.repository;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Order JDBC Writer - Multi-row inserts for orders whose ids are already assigned
+ * 
+ * Bypasses the persistence context for bulk loads: each statement inserts up to
+ * ROWS_PER_STATEMENT rows and statements are sent as a JDBC batch. The caller owns
+ * the connection and the transaction.
+ */
+@Component
+public class OrderJdbcWriter {
+    
+    private static final int ROWS_PER_STATEMENT = 100;
+    
+    private static final String ORDER_COLUMNS = "INSERT INTO ice_cream_orders (id, customer_name, customer_email, "
+        + "customer_email_normalized, customer_phone, delivery_address, total_amount, status, payment_method, "
+        + "payment_transaction_id, special_instructions, estimated_delivery_time, created_at, updated_at, version) VALUES ";
+    private static final String ORDER_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String ITEM_COLUMNS = "INSERT INTO order_items (order_id, flavor, size, quantity, unit_price, toppings, stock_reserved) VALUES ";
+    private static final String ITEM_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String FULL_ORDER_INSERT = insertSql(ORDER_COLUMNS, ORDER_ROW, ROWS_PER_STATEMENT);
+    private static final String FULL_ITEM_INSERT = insertSql(ITEM_COLUMNS, ITEM_ROW, ROWS_PER_STATEMENT);
+    
+    /**
+     * Insert the orders and their items, returns the number of order rows written
+     */
+    public int insert(Connection connection, List<Order> orders) throws SQLException {
+        List<ItemRow> items = new ArrayList<>();
+        for (Order order : orders) {
+            for (OrderItem item : order.getItems() == null ? Collections.<OrderItem>emptyList() : order.getItems()) {
+                items.add(new ItemRow(order.getId(), item));
+            }
+        }
+        writeOrders(connection, orders);
+        writeItems(connection, items);
+        return orders.size();
+    }
+    
+    private void writeOrders(Connection connection, List<Order> orders) throws SQLException {
+        int full = orders.size() / ROWS_PER_STATEMENT * ROWS_PER_STATEMENT;
+        if (full > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(FULL_ORDER_INSERT)) {
+                for (int start = 0; start < full; start += ROWS_PER_STATEMENT) {
+                    bindOrders(statement, orders.subList(start, start + ROWS_PER_STATEMENT));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+        if (full < orders.size()) {
+            List<Order> rest = orders.subList(full, orders.size());
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(ORDER_COLUMNS, ORDER_ROW, rest.size()))) {
+                bindOrders(statement, rest);
+                statement.executeUpdate();
+            }
+        }
+    }
+    
+    private void writeItems(Connection connection, List<ItemRow> items) throws SQLException {
+        int full = items.size() / ROWS_PER_STATEMENT * ROWS_PER_STATEMENT;
+        if (full > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(FULL_ITEM_INSERT)) {
+                for (int start = 0; start < full; start += ROWS_PER_STATEMENT) {
+                    bindItems(statement, items.subList(start, start + ROWS_PER_STATEMENT));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+        if (full < items.size()) {
+            List<ItemRow> rest = items.subList(full, items.size());
+            try (PreparedStatement statement = connection.prepareStatement(insertSql(ITEM_COLUMNS, ITEM_ROW, rest.size()))) {
+                bindItems(statement, rest);
+                statement.executeUpdate();
+            }
+        }
+    }
+    
+    private void bindOrders(PreparedStatement statement, List<Order> orders) throws SQLException {
+        int p = 1;
+        for (Order order : orders) {
+            statement.setLong(p++, order.getId());
+            statement.setString(p++, order.getCustomerName());
+            statement.setString(p++, order.getCustomerEmail());
+            statement.setString(p++, Order.normalizeEmail(order.getCustomerEmail()));
+            statement.setString(p++, order.getCustomerPhone());
+            statement.setString(p++, order.getDeliveryAddress());
+            statement.setBigDecimal(p++, order.getTotalAmount());
+            statement.setString(p++, order.getStatus().name());
+            statement.setString(p++, order.getPaymentMethod() == null ? null : order.getPaymentMethod().name());
+            statement.setString(p++, order.getPaymentTransactionId());
+            statement.setString(p++, order.getSpecialInstructions());
+            statement.setTimestamp(p++, timestamp(order.getEstimatedDeliveryTime()));
+            statement.setTimestamp(p++, timestamp(order.getCreatedAt()));
+            statement.setTimestamp(p++, timestamp(order.getUpdatedAt()));
+            statement.setLong(p++, order.getVersion() == null ? 0L : order.getVersion());
+        }
+    }
+    
+    private void bindItems(PreparedStatement statement, List<ItemRow> items) throws SQLException {
+        int p = 1;
+        for (ItemRow row : items) {
+            statement.setLong(p++, row.orderId);
+            statement.setString(p++, row.item.getFlavor());
+            statement.setString(p++, row.item.getSize());
+            if (row.item.getQuantity() == null) {
+                statement.setNull(p++, Types.INTEGER);
+            } else {
+                statement.setInt(p++, row.item.getQuantity());
+            }
+            statement.setBigDecimal(p++, row.item.getUnitPrice());
+            statement.setString(p++, row.item.getToppings());
+            statement.setBoolean(p++, row.item.isStockReserved());
+        }
+    }
+    
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value == null ? null : Timestamp.valueOf(value);
+    }
+    
+    private static String insertSql(String columns, String row, int rows) {
+        StringBuilder sql = new StringBuilder(columns.length() + rows * (row.length() + 2));
+        sql.append(columns);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+    
+    private static class ItemRow {
+        private final long orderId;
+        private final OrderItem item;
+        
+        ItemRow(long orderId, OrderItem item) {
+            this.orderId = orderId;
+            this.item = item;
+        }
+    }
+}
@@ -2,13 +2,23 @@ package com.icecreamshop.orderservice.repository;
 
 import com.icecreamshop.orderservice.model.Order;
 import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.OrderSummary;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Order Repository for database operations
@@ -17,44 +27,59 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
     /**
-     * Find orders by customer email
+     * JPQL constructor expression selecting an OrderSummary from alias o
      */
-    List<Order> findByCustomerEmailIgnoreCase(String customerEmail);
+    String SUMMARY = "new com.icecreamshop.orderservice.model.OrderSummary(o.id, o.status, o.customerName, " +
+                     "o.totalAmount, o.estimatedDeliveryTime, o.createdAt, o.updatedAt, o.version)";
+    
+    /**
+     * Find order by ID together with its items in a single query
+     */
+    @Override
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findById(Long id);
     
     /**
      * Find orders by customer phone
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByCustomerPhone(String customerPhone);
     
     /**
      * Find orders by status
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByStatus(OrderStatus status);
     
     /**
      * Find orders by customer name (case insensitive, partial match)
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByCustomerNameContainingIgnoreCase(String customerName);
     
     /**
      * Find orders created between two dates
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     
     /**
      * Find orders by status and created date
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByStatusAndCreatedAtAfter(OrderStatus status, LocalDateTime date);
     
     /**
      * Find recent orders (last 24 hours)
      */
+    @EntityGraph(attributePaths = "items")
     @Query("SELECT o FROM Order o WHERE o.createdAt >= :since ORDER BY o.createdAt DESC")
     List<Order> findRecentOrders(@Param("since") LocalDateTime since);
     
     /**
      * Find orders by delivery address containing text
      */
+    @EntityGraph(attributePaths = "items")
     List<Order> findByDeliveryAddressContainingIgnoreCase(String addressPart);
     
     /**
@@ -65,6 +90,238 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     /**
      * Find pending orders older than specified time
      */
+    @EntityGraph(attributePaths = "items")
     @Query("SELECT o FROM Order o WHERE o.status = 'PENDING' AND o.createdAt < :cutoffTime")
     List<Order> findStalePendingOrders(@Param("cutoffTime") LocalDateTime cutoffTime);
+    
+    /**
+     * Ids of the oldest pending orders created before the cutoff, without loading or locking them
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status = 'PENDING' AND o.createdAt < :cutoffTime " +
+           "ORDER BY o.createdAt, o.id")
+    List<Long> findStalePendingIds(@Param("cutoffTime") LocalDateTime cutoffTime, Limit limit);
+    
+    /**
+     * Creation time of the oldest order in the given status, null when there is none
+     */
+    @Query("SELECT MIN(o.createdAt) FROM Order o WHERE o.status = :status")
+    LocalDateTime findOldestCreatedAtByStatus(@Param("status") OrderStatus status);
+    
+    // Keyset pagination - rows strictly after the (createdAt, id) cursor, newest first.
+    // Items are batch fetched (see Order.items) since a collection fetch join cannot be limited in SQL.
+    
+    /**
+     * Page through all orders
+     */
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Page through orders by status
+     */
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByStatus(@Param("status") OrderStatus status,
+                                 @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Page through orders by normalized customer email
+     */
+    @Query("SELECT o FROM Order o WHERE o.customerEmailNormalized = :email " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByCustomerEmail(@Param("email") String email,
+                                        @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    // Summary pages - same keyset order as above, selecting only the OrderSummary columns
+    
+    /**
+     * Page through summaries of all orders
+     */
+    @Query("SELECT " + SUMMARY + " FROM Order o " +
+           "WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummaryPage(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Page through summaries of orders by status
+     */
+    @Query("SELECT " + SUMMARY + " FROM Order o WHERE o.status = :status " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummaryPageByStatus(@Param("status") OrderStatus status,
+                                               @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                               Limit limit);
+    
+    /**
+     * Page through summaries of orders by normalized customer email
+     */
+    @Query("SELECT " + SUMMARY + " FROM Order o WHERE o.customerEmailNormalized = :email " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummaryPageByCustomerEmail(@Param("email") String email,
+                                                      @Param("createdAt") LocalDateTime createdAt,
+                                                      @Param("id") Long id, Limit limit);
+    
+    /**
+     * Page through orders created since the given time
+     */
+    @Query("SELECT o FROM Order o WHERE o.createdAt >= :since " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findRecentPage(@Param("since") LocalDateTime since,
+                               @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Page through orders by customer name (case insensitive, partial match)
+     */
+    @Query("SELECT o FROM Order o WHERE LOWER(o.customerName) LIKE LOWER(CONCAT('%', :name, '%')) " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByCustomerName(@Param("name") String name,
+                                       @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Page through orders by delivery address (case insensitive, partial match)
+     */
+    @Query("SELECT o FROM Order o WHERE LOWER(o.deliveryAddress) LIKE LOWER(CONCAT('%', :address, '%')) " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByDeliveryAddress(@Param("address") String address,
+                                          @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                          Limit limit);
+    
+    /**
+     * Page through search index candidates whose customer name really contains the text
+     */
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids " +
+           "AND LOWER(o.customerName) LIKE LOWER(CONCAT('%', :name, '%')) " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByIdInAndCustomerName(@Param("ids") Collection<Long> ids, @Param("name") String name,
+                                              @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                              Limit limit);
+    
+    /**
+     * Page through search index candidates whose delivery address really contains the text
+     */
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids " +
+           "AND LOWER(o.deliveryAddress) LIKE LOWER(CONCAT('%', :address, '%')) " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByIdInAndDeliveryAddress(@Param("ids") Collection<Long> ids,
+                                                 @Param("address") String address,
+                                                 @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                 Limit limit);
+    
+    /**
+     * Searchable text of orders after the given id, used to build the search index
+     */
+    @Query("SELECT o.id, o.customerName, o.deliveryAddress FROM Order o WHERE o.id > :id ORDER BY o.id")
+    List<Object[]> findSearchableFieldsAfter(@Param("id") Long id, Limit limit);
+    
+    /**
+     * Next value of the order id sequence, the top of a block of Order.ID_ALLOCATION_SIZE ids
+     */
+    @Query(value = "SELECT NEXT VALUE FOR ice_cream_orders_seq", nativeQuery = true)
+    long nextIdBlock();
+    
+    // Single order status transitions - compare-and-set on (status, version)
+    
+    /**
+     * Current status and version of an order, without loading it
+     */
+    @Query("SELECT o.status, o.version FROM Order o WHERE o.id = :id")
+    List<Object[]> findStatusAndVersionById(@Param("id") Long id);
+    
+    /**
+     * Set the status only if the order is still in the expected status and version
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :toStatus, o.updatedAt = :updatedAt, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.status = :fromStatus AND o.version = :version")
+    int compareAndSetStatus(@Param("id") Long id, @Param("fromStatus") OrderStatus fromStatus,
+                            @Param("version") Long version, @Param("toStatus") OrderStatus toStatus,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Version and last modification time of one order, for conditional requests without loading it
+     */
+    @Query("SELECT o.version, COALESCE(o.updatedAt, o.createdAt) FROM Order o WHERE o.id = :id")
+    List<Object[]> findVersionAndLastModifiedById(@Param("id") Long id);
+    
+    // Bulk status transitions - lock the affected rows, then update them in one statement
+    
+    /**
+     * Lock the given orders that are not already in the target status
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status, o.createdAt FROM Order o WHERE o.id IN :ids AND o.status <> :toStatus")
+    List<Object[]> lockStatusesByIdIn(@Param("ids") Collection<Long> ids, @Param("toStatus") OrderStatus toStatus);
+    
+    /**
+     * Lock the given orders that are currently in the given status
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status, o.createdAt FROM Order o WHERE o.id IN :ids AND o.status = :fromStatus")
+    List<Object[]> lockStatusesByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                               @Param("fromStatus") OrderStatus fromStatus);
+    
+    /**
+     * Lock the oldest orders in the given status
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status, o.createdAt FROM Order o WHERE o.status = :fromStatus ORDER BY o.createdAt, o.id")
+    List<Object[]> lockStatusesByStatus(@Param("fromStatus") OrderStatus fromStatus, Limit limit);
+    
+    /**
+     * Set the status of the given orders in a single UPDATE
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :toStatus, o.updatedAt = :updatedAt, o.version = o.version + 1 " +
+           "WHERE o.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("toStatus") OrderStatus toStatus,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+    
+    // Revenue rollups - item lines of transitioned orders, see RevenueRollup
+    
+    /**
+     * Item lines of the given orders with the creation time and payment method they are rolled up under
+     */
+    @Query("SELECT o.id, o.createdAt, o.paymentMethod, i.flavor, i.size, i.quantity, i.unitPrice " +
+           "FROM Order o JOIN o.items i WHERE o.id IN :ids")
+    List<Object[]> findItemLinesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Item lines of the given orders that reserved stock, as (flavor, size, quantity)
+     */
+    @Query("SELECT i.flavor, i.size, i.quantity FROM Order o JOIN o.items i " +
+           "WHERE o.id IN :ids AND i.stockReserved = true")
+    List<Object[]> findReservedItemLinesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Export scrolling - rows strictly after the (createdAt, id) cursor, oldest first, read only.
+    // Each chunk is bounded by its Limit (icecream.export.chunk-size) and read whole, so no fetch size hint
+    
+    /**
+     * Next export chunk of orders created before the given time
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :to " +
+           "AND (o.createdAt > :createdAt OR (o.createdAt = :createdAt AND o.id > :id)) " +
+           "ORDER BY o.createdAt ASC, o.id ASC")
+    List<Order> findExportChunk(@Param("to") LocalDateTime to,
+                                @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    /**
+     * Next export chunk of orders with the given status created before the given time
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.createdAt < :to " +
+           "AND (o.createdAt > :createdAt OR (o.createdAt = :createdAt AND o.id > :id)) " +
+           "ORDER BY o.createdAt ASC, o.id ASC")
+    List<Order> findExportChunkByStatus(@Param("status") OrderStatus status, @Param("to") LocalDateTime to,
+                                        @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                        Limit limit);
 }
@@ -0,0 +1,136 @@
+package com.icecreamshop.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Customer History Cache - Bounded cache of recently requested customer order histories
+ * 
+ * A history is the customer's order ids sorted newest first, with their creation
+ * times, so any keyset page of it is a binary search and a slice. It is loaded from
+ * the ids in CustomerOrderIndex with one primary key lookup per chunk of ids over
+ * the live and archive tables, and weighed by its number of orders. OrderService
+ * invalidates a customer's history whenever it creates an order for them; hit and
+ * miss counts are published as cache.* metrics tagged cache=orders.customer-history.
+ */
+@Component
+public class CustomerHistoryCache {
+    
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    
+    private final OrderArchiveStore orderArchive;
+    private final CustomerOrderIndex customerOrderIndex;
+    private final Cache<String, History> cache;
+    
+    @Autowired
+    public CustomerHistoryCache(OrderArchiveStore orderArchive, CustomerOrderIndex customerOrderIndex,
+                                MeterRegistry meterRegistry,
+                                @Value("${icecream.cache.customer.max-orders:200000}") long maxOrders,
+                                @Value("${icecream.cache.customer.ttl:10m}") Duration ttl) {
+        this.orderArchive = orderArchive;
+        this.customerOrderIndex = customerOrderIndex;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxOrders)
+            .weigher((String email, History history) -> Math.max(1, history.size()))
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orders.customer-history");
+    }
+    
+    /**
+     * History of the normalized email, loaded and cached on a miss, or null while the index is not ready
+     */
+    public History get(String normalizedEmail) {
+        return cache.get(normalizedEmail, this::load);
+    }
+    
+    public void invalidate(String normalizedEmail) {
+        cache.invalidate(normalizedEmail);
+    }
+    
+    private History load(String normalizedEmail) {
+        long[] candidates = customerOrderIndex.orderIds(normalizedEmail);
+        if (candidates == null) {
+            return null;
+        }
+        List<Object[]> keys = new ArrayList<>(candidates.length);
+        for (int from = 0; from < candidates.length; from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = Arrays.stream(candidates, from, Math.min(from + LOAD_CHUNK_SIZE, candidates.length))
+                .boxed()
+                .toList();
+            for (Object[] row : orderArchive.findHistoryKeysByIdIn(chunk)) {
+                // Drops orders of another customer whose email hash collides
+                if (normalizedEmail.equals(row[2])) {
+                    keys.add(row);
+                }
+            }
+        }
+        keys.sort(Comparator.comparing((Object[] row) -> (LocalDateTime) row[1])
+            .thenComparing(row -> (Long) row[0])
+            .reversed());
+        long[] ids = new long[keys.size()];
+        long[] createdAt = new long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            ids[i] = (Long) keys.get(i)[0];
+            createdAt[i] = micros((LocalDateTime) keys.get(i)[1]);
+        }
+        return new History(ids, createdAt);
+    }
+    
+    private static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+    
+    /**
+     * One customer's order ids and creation times in microseconds, newest first
+     */
+    public static final class History {
+        private final long[] ids;
+        private final long[] createdAt;
+    
+        History(long[] ids, long[] createdAt) {
+            this.ids = ids;
+            this.createdAt = createdAt;
+        }
+    
+        public int size() {
+            return ids.length;
+        }
+    
+        /**
+         * Ids of up to limit orders strictly after the cursor
+         */
+        public long[] page(OrderCursor after, int limit) {
+            long cursorCreatedAt = micros(after.getCreatedAt());
+            long cursorId = after.getId();
+            // First position strictly older than the cursor
+            int low = 0;
+            int high = ids.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (createdAt[middle] > cursorCreatedAt
+                        || (createdAt[middle] == cursorCreatedAt && ids[middle] >= cursorId)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return Arrays.copyOfRange(ids, low, Math.min(low + limit, ids.length));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Customer Order Index - Order ids of every customer, keyed by a hash of the normalized email
+ * 
+ * Each customer maps to a sorted array of order ids. Emails are reduced to a 64-bit
+ * hash so the index holds no strings; the rare collision only adds ids of another
+ * customer, which callers drop by checking the email of what they load.
+ */
+@Component
+public class CustomerOrderIndex {
+    
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+    private static final long[] NONE = new long[0];
+    
+    @Autowired
+    private OrderArchiveStore orderArchive;
+    
+    private final Map<Long, long[]> orderIds = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    
+    /**
+     * Build the index from every stored order, live or archived
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = orderArchive.findCustomerEmailsAfter(lastId, REBUILD_CHUNK_SIZE);
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                add(lastId, (String) row[1]);
+            }
+            if (rows.size() < REBUILD_CHUNK_SIZE) {
+                break;
+            }
+        }
+        ready = true;
+    }
+    
+    public void add(Order order) {
+        add(order.getId(), Order.normalizeEmail(order.getCustomerEmail()));
+    }
+    
+    /**
+     * Ids of the orders possibly placed with the normalized email, ascending,
+     * or null while the index is still being built
+     */
+    public long[] orderIds(String normalizedEmail) {
+        if (!ready) {
+            return null;
+        }
+        return orderIds.getOrDefault(hash(normalizedEmail), NONE);
+    }
+    
+    private void add(long id, String normalizedEmail) {
+        if (normalizedEmail == null) {
+            return;
+        }
+        orderIds.compute(hash(normalizedEmail), (key, ids) -> {
+            if (ids == null) {
+                return new long[] {id};
+            }
+            // New orders usually carry the highest id, so this is almost always an append
+            int position = ids[ids.length - 1] < id ? -(ids.length + 1) : Arrays.binarySearch(ids, id);
+            if (position >= 0) {
+                return ids;
+            }
+            int insertAt = -(position + 1);
+            long[] grown = new long[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, insertAt);
+            grown[insertAt] = id;
+            System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+            return grown;
+        });
+    }
+    
+    /**
+     * 64-bit FNV-1a hash of the email's characters
+     */
+    static long hash(String normalizedEmail) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < normalizedEmail.length(); i++) {
+            hash ^= normalizedEmail.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,328 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.repository.FlavorInventoryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Flavor Inventory - Stock per flavor and size, reserved in memory when orders are placed
+ * 
+ * Each (flavor, size) holds its stock split over a few stripes, one per core by default.
+ * A reservation takes from the calling thread's own stripe with a compare-and-set, and
+ * only moves on to other stripes when its own runs short, so concurrent orders for the
+ * same popular flavor rarely touch the same counter. Only when no single stripe can
+ * cover a quantity that the stripes hold together is the stock gathered under a lock.
+ * 
+ * An order reserves all of its items or none: a short item puts back what was already
+ * taken and fails with OutOfStockException. Each item line records whether its stock was
+ * reserved, and OrderService releases only those lines when the order is cancelled, or
+ * refunded without having been cancelled, so orders placed before a pair was tracked
+ * never add stock they did not take.
+ * 
+ * Only pairs with a row in flavor_inventory are tracked; any other flavor or size is
+ * unlimited. Changed stock levels are written back in one batch per flush interval, so
+ * after a crash the stored levels can miss the reservations of the last interval.
+ */
+@Component
+public class FlavorInventory {
+    
+    // 16 longs = 128 bytes between stripes, so neighbouring stripes never share a cache line
+    private static final int PAD = 16;
+    
+    private final FlavorInventoryStore store;
+    private final Counter outOfStock;
+    private final int stripes;
+    private final Map<String, Stock> stocks = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public FlavorInventory(FlavorInventoryStore store, MeterRegistry meterRegistry,
+                           @Value("${icecream.inventory.stripes:0}") int stripes) {
+        this.store = store;
+        this.outOfStock = Counter.builder("orders.inventory.out-of-stock")
+            .description("Orders refused because an item was out of stock")
+            .register(meterRegistry);
+        int wanted = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        // A power of two, so the home stripe is a mask of the thread's hash
+        int count = 1;
+        while (count < wanted) {
+            count <<= 1;
+        }
+        this.stripes = count;
+    }
+    
+    /**
+     * Load the stored stock levels
+     */
+    @PostConstruct
+    public void load() {
+        for (Object[] row : store.findAll()) {
+            stock((String) row[0], (String) row[1]).set((Long) row[2]);
+        }
+    }
+    
+    /**
+     * Write back the stock levels changed since the last flush in one batch
+     */
+    @Scheduled(fixedDelayString = "${icecream.inventory.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (Stock stock : stocks.values()) {
+            if (stock.dirty) {
+                // Cleared before reading, so a change racing with the read is written next time
+                stock.dirty = false;
+                rows.add(new Object[] {stock.flavor, stock.size, stock.available(), now});
+            }
+        }
+        if (!rows.isEmpty()) {
+            store.saveAll(rows);
+        }
+    }
+    
+    /**
+     * Reserve every tracked item of an order, or none of them
+     */
+    public Reservation reserve(List<OrderItem> items) {
+        Reservation wanted = quantitiesOf(items, false);
+        List<Map.Entry<Stock, Long>> taken = new ArrayList<>(wanted.quantities.size());
+        for (Map.Entry<Stock, Long> entry : wanted.quantities.entrySet()) {
+            Stock stock = entry.getKey();
+            if (!stock.tryTake(entry.getValue())) {
+                taken.forEach(held -> held.getKey().put(held.getValue()));
+                outOfStock.increment();
+                throw new OutOfStockException(stock.flavor, stock.size, entry.getValue(), stock.available());
+            }
+            taken.add(entry);
+        }
+        if (items != null) {
+            // Flag the lines whose stock was taken above, not a pair tracked since then
+            items.forEach(item -> {
+                Stock stock = stockOf(item);
+                item.setStockReserved(stock != null && wanted.quantities.containsKey(stock));
+            });
+        }
+        return wanted;
+    }
+    
+    /**
+     * The quantities the given items reserved when their order was placed, for releasing them
+     */
+    public Reservation reservationOf(List<OrderItem> items) {
+        return quantitiesOf(items, true);
+    }
+    
+    private Reservation quantitiesOf(List<OrderItem> items, boolean reservedOnly) {
+        if (stocks.isEmpty() || items == null) {
+            return Reservation.NONE;
+        }
+        Map<Stock, Long> quantities = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            Stock stock = reservedOnly && !item.isStockReserved() ? null : stockOf(item);
+            if (stock != null) {
+                quantities.merge(stock, item.getQuantity().longValue(), Long::sum);
+            }
+        }
+        return quantities.isEmpty() ? Reservation.NONE : new Reservation(quantities);
+    }
+    
+    /**
+     * Tracked stock an item takes from, or null if it takes none
+     */
+    private Stock stockOf(OrderItem item) {
+        if (item.getFlavor() == null || item.getSize() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+            return null;
+        }
+        return stocks.get(key(item.getFlavor(), item.getSize()));
+    }
+    
+    /**
+     * Put reserved quantities back into stock
+     */
+    public void release(Reservation reservation) {
+        reservation.quantities.forEach(Stock::put);
+    }
+    
+    /**
+     * Whether any flavor and size is tracked
+     */
+    public boolean isTracking() {
+        return !stocks.isEmpty();
+    }
+    
+    /**
+     * Set the available stock of a flavor and size, tracking it from now on
+     */
+    public StockLevel setStock(String flavor, String size, long available) {
+        if (flavor == null || flavor.isBlank() || size == null || size.isBlank()) {
+            throw new IllegalArgumentException("Flavor and size are required");
+        }
+        if (available < 0) {
+            throw new IllegalArgumentException("Available stock cannot be negative");
+        }
+        Stock stock = stock(flavor.trim(), size.trim());
+        stock.set(available);
+        stock.dirty = true;
+        return new StockLevel(stock.flavor, stock.size, stock.available());
+    }
+    
+    /**
+     * Current stock of every tracked flavor and size
+     */
+    public List<StockLevel> levels() {
+        return stocks.values().stream()
+            .map(stock -> new StockLevel(stock.flavor, stock.size, stock.available()))
+            .sorted(Comparator.comparing(StockLevel::getFlavor).thenComparing(StockLevel::getSize))
+            .toList();
+    }
+    
+    private Stock stock(String flavor, String size) {
+        return stocks.computeIfAbsent(key(flavor, size), key -> new Stock(flavor, size, stripes));
+    }
+    
+    private static String key(String flavor, String size) {
+        return flavor.trim().toLowerCase(Locale.ROOT) + '\u0000' + size.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Stripe a thread starts from, fixed per thread so its reservations stay on one cache line
+     */
+    private static int homeStripe(int mask) {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (id >>> 32) & mask;
+    }
+    
+    /**
+     * Stock of one flavor and size, spread over padded stripes
+     */
+    private static final class Stock {
+        private final String flavor;
+        private final String size;
+        private final int mask;
+        private final AtomicLongArray stripes;
+        private volatile boolean dirty;
+    
+        Stock(String flavor, String size, int stripeCount) {
+            this.flavor = flavor;
+            this.size = size;
+            this.mask = stripeCount - 1;
+            this.stripes = new AtomicLongArray(stripeCount * PAD);
+        }
+    
+        boolean tryTake(long quantity) {
+            int home = homeStripe(mask);
+            for (int i = 0; i <= mask; i++) {
+                int index = ((home + i) & mask) * PAD;
+                long current = stripes.get(index);
+                while (current >= quantity) {
+                    if (stripes.compareAndSet(index, current, current - quantity)) {
+                        dirty = true;
+                        return true;
+                    }
+                    current = stripes.get(index);
+                }
+            }
+            return takeGathered(quantity);
+        }
+    
+        void put(long quantity) {
+            stripes.addAndGet(homeStripe(mask) * PAD, quantity);
+            dirty = true;
+        }
+    
+        long available() {
+            long available = 0;
+            for (int i = 0; i <= mask; i++) {
+                available += stripes.get(i * PAD);
+            }
+            return available;
+        }
+    
+        /**
+         * Take a quantity that no single stripe holds by gathering every stripe, then spread the rest back
+         */
+        synchronized boolean takeGathered(long quantity) {
+            long gathered = gather();
+            boolean taken = gathered >= quantity;
+            spread(taken ? gathered - quantity : gathered);
+            if (taken) {
+                dirty = true;
+            }
+            return taken;
+        }
+    
+        synchronized void set(long available) {
+            gather();
+            spread(available);
+        }
+    
+        private long gather() {
+            long gathered = 0;
+            for (int i = 0; i <= mask; i++) {
+                gathered += stripes.getAndSet(i * PAD, 0);
+            }
+            return gathered;
+        }
+    
+        private void spread(long amount) {
+            long share = amount / (mask + 1);
+            for (int i = 0; i <= mask; i++) {
+                stripes.addAndGet(i * PAD, i == 0 ? amount - share * mask : share);
+            }
+        }
+    }
+    
+    /**
+     * Quantities taken from each stock by one order
+     */
+    public static final class Reservation {
+        static final Reservation NONE = new Reservation(Map.of());
+    
+        private final Map<Stock, Long> quantities;
+    
+        private Reservation(Map<Stock, Long> quantities) {
+            this.quantities = quantities;
+        }
+    
+        public boolean isEmpty() {
+            return quantities.isEmpty();
+        }
+    }
+    
+    /**
+     * Inner class for the available stock of one flavor and size
+     */
+    public static class StockLevel {
+        private final String flavor;
+        private final String size;
+        private final long available;
+    
+        public StockLevel(String flavor, String size, long available) {
+            this.flavor = flavor;
+            this.size = size;
+            this.available = available;
+        }
+    
+        // Getters
+        public String getFlavor() { return flavor; }
+        public String getSize() { return size; }
+        public long getAvailable() { return available; }
+    }
+}
@@ -0,0 +1,73 @@
+package com.icecreamshop.orderservice.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-Flight Changes - Per-key counts of changes to an in-memory view that are pending or applied
+ * 
+ * Views fed by changes applied after commit, and corrected from a query, can only trust
+ * the query for a key if no change to it committed while the query ran. A change is
+ * begun before its transaction commits and applied (or discarded) after, so a key with
+ * nothing pending and the same applied count after the query as before it holds exactly
+ * the commits the query read.
+ */
+final class InFlightChanges<K> {
+
+    private final Map<K, Counts> counts = new ConcurrentHashMap<>();
+
+    /**
+     * A change to the key is about to commit
+     */
+    void begin(K key) {
+        counts(key).pending.incrementAndGet();
+    }
+
+    /**
+     * The change was applied to the view
+     */
+    void applied(K key) {
+        Counts keyCounts = counts(key);
+        // Count it as applied before it stops pending, so unchangedSince never sees neither
+        keyCounts.applied.incrementAndGet();
+        keyCounts.pending.decrementAndGet();
+    }
+
+    /**
+     * The change rolled back and will not be applied
+     */
+    void discarded(K key) {
+        counts(key).pending.decrementAndGet();
+    }
+
+    /**
+     * Applied count of every key, to compare against once a query returns
+     */
+    Map<K, Long> appliedCounts() {
+        Map<K, Long> applied = new HashMap<>();
+        counts.forEach((key, keyCounts) -> applied.put(key, keyCounts.applied.get()));
+        return applied;
+    }
+
+    /**
+     * Whether nothing is pending for the key and its applied count is still the given one
+     */
+    boolean unchangedSince(K key, Map<K, Long> applied) {
+        Counts keyCounts = counts.get(key);
+        if (keyCounts == null) {
+            return true;
+        }
+        return keyCounts.pending.get() == 0 && keyCounts.applied.get() == applied.getOrDefault(key, 0L);
+    }
+
+    private Counts counts(K key) {
+        return counts.computeIfAbsent(key, k -> new Counts());
+    }
+
+    private static final class Counts {
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicLong applied = new AtomicLong();
+    }
+}
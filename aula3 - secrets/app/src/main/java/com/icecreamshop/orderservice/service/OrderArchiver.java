@@ -0,0 +1,113 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Order Archiver - Moves orders that ended long ago out of the live table
+ * 
+ * Orders in a terminal status (DELIVERED, CANCELLED, REFUNDED) that were last changed
+ * more than icecream.archive.after ago move to ice_cream_orders_archive with their
+ * items, so status lists, counts and recent-order queries only scan the working set.
+ * Each batch locks, copies and deletes up to batch-size orders in its own short
+ * transaction; runs stop after max-batches-per-run batches and pause between them,
+ * and any remaining backlog is picked up by the next run.
+ * 
+ * Archived orders stay readable: OrderService falls through to the archive when a
+ * lookup by id or customer misses the live table, and moves an archived order back
+ * before changing its status (a refund). Statistics, revenue rollups and the customer
+ * index count both tables, and exports include archived orders unless asked not to
+ * (includeArchived=false). Name and address searches and status lists cover live
+ * orders only.
+ * 
+ * Metric: orders.archive.archived (orders moved to the archive).
+ */
+@Component
+public class OrderArchiver {
+    
+    private static final List<String> TERMINAL_STATUSES = Arrays.stream(OrderStatus.values())
+        .filter(OrderStatus::isTerminal)
+        .map(OrderStatus::name)
+        .toList();
+    
+    private final OrderArchiveStore orderArchive;
+    private final OrderSearchIndex searchIndex;
+    private final TransactionTemplate transaction;
+    private final Counter archived;
+    
+    @Value("${icecream.archive.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${icecream.archive.after:30d}")
+    private Duration after;
+    
+    @Value("${icecream.archive.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${icecream.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+    
+    @Value("${icecream.archive.batch-pause:100ms}")
+    private Duration batchPause;
+    
+    @Autowired
+    public OrderArchiver(OrderArchiveStore orderArchive, OrderSearchIndex searchIndex,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.orderArchive = orderArchive;
+        this.searchIndex = searchIndex;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.archived = Counter.builder("orders.archive.archived")
+            .description("Orders moved to the archive")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Archive old terminal orders batch by batch, returns the number archived
+     */
+    @Scheduled(fixedDelayString = "${icecream.archive.interval-ms:300000}",
+               initialDelayString = "${icecream.archive.interval-ms:300000}")
+    public int archive() throws InterruptedException {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(after);
+        int moved = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            if (batch > 0 && !batchPause.isZero()) {
+                Thread.sleep(batchPause.toMillis());
+            }
+            List<Object[]> rows = transaction.execute(status -> archiveBatch(cutoff));
+            // Archived orders are no longer search results, so drop them from the search index
+            for (Object[] row : rows) {
+                searchIndex.remove((Long) row[0], (String) row[1], (String) row[2]);
+            }
+            archived.increment(rows.size());
+            moved += rows.size();
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        return moved;
+    }
+    
+    private List<Object[]> archiveBatch(LocalDateTime cutoff) {
+        List<Object[]> rows = orderArchive.lockArchivable(TERMINAL_STATUSES, cutoff, batchSize);
+        if (!rows.isEmpty()) {
+            orderArchive.archive(rows.stream().map(row -> (Long) row[0]).toList(), LocalDateTime.now());
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,345 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Order Event Broadcaster - In-process fan-out of order status changes to SSE clients
+ * 
+ * Connections are held as async SseEmitters, so an idle subscriber costs memory but
+ * no thread. Publishing only enqueues: each subscriber has a bounded buffer keyed by
+ * order id, so repeated changes to one order coalesce into its latest status and a
+ * full buffer drops its oldest order. Each subscriber drains its buffer as one serial
+ * task on a pool that grows with the subscribers being written to, so a client that
+ * stops reading holds only its own thread. A send blocked for longer than the send
+ * timeout drops that subscriber: it is unregistered, its writer is interrupted and its
+ * stream completes with an error once the send gives up.
+ */
+@Component
+public class OrderEventBroadcaster {
+    
+    private static final String EVENT_NAME = "status";
+    
+    private final Map<Long, Set<Subscriber>> byOrder = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, Set<Subscriber>> byStatus = new EnumMap<>(OrderStatus.class);
+    private final Set<Subscriber> allOrders = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService dispatcher;
+    private final Counter droppedEvents;
+    private final Counter slowSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    
+    @Autowired
+    public OrderEventBroadcaster(MeterRegistry meterRegistry,
+                                 @Value("${icecream.events.buffer-size:64}") int bufferSize,
+                                 @Value("${icecream.events.timeout:30m}") Duration timeout,
+                                 @Value("${icecream.events.send-timeout:10s}") Duration sendTimeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Idle threads retire after a minute, so the pool only holds threads for subscribers being written to
+        this.dispatcher = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "order-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.droppedEvents = Counter.builder("orders.events.dropped")
+            .description("Order events dropped from full subscriber buffers")
+            .register(meterRegistry);
+        this.slowSubscribers = Counter.builder("orders.events.slow-subscribers")
+            .description("Subscribers dropped because a send exceeded the send timeout")
+            .register(meterRegistry);
+        meterRegistry.gauge("orders.events.subscribers", subscriberCount);
+    }
+    
+    /**
+     * Stream changes to one order, starting with its current status, or null when the order does not exist
+     * 
+     * The subscription is registered before the status is read, so a change committed in
+     * between is still delivered. The snapshot is only sent if no change was offered
+     * first, since it may have been read before that change and must not replace it.
+     */
+    public SseEmitter subscribeToOrder(Long orderId, Supplier<OrderStatus> currentStatus) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        // Per-key compute keeps an emptied set from being removed while another subscriber joins it
+        register(subscriber,
+            () -> byOrder.compute(orderId, (id, subscribers) -> {
+                Set<Subscriber> joined = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+                joined.add(subscriber);
+                return joined;
+            }),
+            () -> byOrder.computeIfPresent(orderId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            }));
+        OrderStatus status = currentStatus.get();
+        if (status == null) {
+            subscriber.close();
+            return null;
+        }
+        subscriber.offerFirst(new OrderStatusEvent(orderId, null, status));
+        return subscriber.emitter;
+    }
+    
+    /**
+     * Stream changes to every order, or only those moving into the given status
+     */
+    public SseEmitter subscribeToOrders(OrderStatus status) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        Set<Subscriber> subscribers = status == null ? allOrders : byStatus.get(status);
+        register(subscriber, () -> subscribers.add(subscriber), () -> subscribers.remove(subscriber));
+        return subscriber.emitter;
+    }
+    
+    /**
+     * Fan a committed change out to every matching subscriber without blocking the caller
+     */
+    public void publish(OrderStatusEvent event) {
+        Set<Subscriber> orderSubscribers = byOrder.get(event.getOrderId());
+        if (orderSubscribers != null) {
+            orderSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+        byStatus.get(event.getStatus()).forEach(subscriber -> subscriber.offer(event));
+        allOrders.forEach(subscriber -> subscriber.offer(event));
+    }
+    
+    public void publishAll(List<OrderStatusEvent> events) {
+        events.forEach(this::publish);
+    }
+    
+    /**
+     * Comment line to every subscriber, so dead connections are detected and proxies keep idle ones open
+     */
+    @Scheduled(fixedDelayString = "${icecream.events.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        forEachSubscriber(Subscriber::requestHeartbeat);
+    }
+    
+    /**
+     * Drop every subscriber whose current send has been blocked for longer than the send timeout
+     */
+    @Scheduled(fixedDelayString = "${icecream.events.send-check-interval-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        forEachSubscriber(subscriber -> {
+            if (subscriber.abortStalledSend(now)) {
+                slowSubscribers.increment();
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        forEachSubscriber(subscriber -> subscriber.emitter.complete());
+    }
+    
+    private void register(Subscriber subscriber, Runnable add, Runnable remove) {
+        subscriber.onClose = () -> {
+            remove.run();
+            subscriberCount.decrementAndGet();
+        };
+        add.run();
+        subscriberCount.incrementAndGet();
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+    }
+    
+    private void forEachSubscriber(Consumer<Subscriber> action) {
+        byOrder.values().forEach(subscribers -> subscribers.forEach(action));
+        byStatus.values().forEach(subscribers -> subscribers.forEach(action));
+        allOrders.forEach(action);
+    }
+    
+    /**
+     * One open stream with its coalescing buffer of pending events
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final LinkedHashMap<Long, OrderStatusEvent> pending = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final Object sendLock = new Object();
+        private Runnable onClose = () -> {};
+        private Thread sender;
+        private long sendStartedNanos;
+        private boolean stalled;
+        private boolean heartbeatDue;
+        private boolean offered;
+        
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+        
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                onClose.run();
+            }
+        }
+        
+        void offer(OrderStatusEvent event) {
+            enqueue(event, false);
+        }
+        
+        /**
+         * Offer an event only if none was offered before, pending or already sent
+         */
+        void offerFirst(OrderStatusEvent event) {
+            enqueue(event, true);
+        }
+        
+        private void enqueue(OrderStatusEvent event, boolean onlyFirst) {
+            if (closed.get()) {
+                return;
+            }
+            synchronized (this) {
+                if (onlyFirst && offered) {
+                    return;
+                }
+                // Re-inserting moves the order to the tail, so the oldest order is dropped first
+                if (pending.remove(event.getOrderId()) == null && pending.size() >= bufferSize) {
+                    Iterator<Long> oldest = pending.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    droppedEvents.increment();
+                }
+                pending.put(event.getOrderId(), event);
+                offered = true;
+            }
+            scheduleDrain();
+        }
+        
+        void requestHeartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+            }
+            scheduleDrain();
+        }
+        
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+        
+        private void drain() {
+            try {
+                while (true) {
+                    List<OrderStatusEvent> events;
+                    boolean heartbeat;
+                    synchronized (this) {
+                        events = new ArrayList<>(pending.values());
+                        pending.clear();
+                        heartbeat = heartbeatDue;
+                        heartbeatDue = false;
+                    }
+                    if (events.isEmpty() && !heartbeat) {
+                        break;
+                    }
+                    if (heartbeat) {
+                        send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    for (OrderStatusEvent event : events) {
+                        send(SseEmitter.event()
+                            .name(EVENT_NAME)
+                            .id(event.getOrderId().toString())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                // An interrupt from abortStalledSend must not reach the next task on this thread
+                Thread.interrupted();
+                draining.set(false);
+            }
+            // An event offered between the last check and the reset must not wait for the next publish
+            boolean more;
+            synchronized (this) {
+                more = !pending.isEmpty() || heartbeatDue;
+            }
+            if (more && !closed.get()) {
+                scheduleDrain();
+            }
+        }
+        
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (sendLock) {
+                sender = Thread.currentThread();
+                sendStartedNanos = System.nanoTime();
+            }
+            try {
+                emitter.send(event);
+            } finally {
+                synchronized (sendLock) {
+                    sender = null;
+                }
+            }
+            if (stalledSend()) {
+                throw new IOException("Send to a subscriber took longer than the send timeout");
+            }
+        }
+        
+        private boolean stalledSend() {
+            synchronized (sendLock) {
+                return stalled;
+            }
+        }
+        
+        /**
+         * Close the subscriber and interrupt its writer if a send has been in progress since before the timeout
+         * 
+         * The emitter is not completed here, since completing waits for the blocked send;
+         * the writer completes it with an error when its send fails or returns.
+         */
+        boolean abortStalledSend(long now) {
+            synchronized (sendLock) {
+                if (sender == null || stalled || now - sendStartedNanos < sendTimeoutNanos) {
+                    return false;
+                }
+                stalled = true;
+                sender.interrupt();
+            }
+            close();
+            return true;
+        }
+    }
+}
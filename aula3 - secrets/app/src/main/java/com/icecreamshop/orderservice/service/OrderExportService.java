@@ -0,0 +1,115 @@
+package com.icecreamshop.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Order Export Service - Streams orders as newline-delimited JSON
+ * 
+ * Orders are read in fixed-size keyset chunks, each in its own short read-only
+ * transaction, so at most one chunk is held in memory regardless of table size.
+ * Archived orders are exported first, in a keyset pass over ice_cream_orders_archive,
+ * then the live orders; an order archived or restored while the export runs can be
+ * missed or written twice.
+ */
+@Service
+public class OrderExportService {
+    
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderArchiveStore orderArchive;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${icecream.export.chunk-size:500}")
+    private Integer chunkSize;
+    
+    private final TransactionTemplate readOnlyTransaction;
+    
+    public OrderExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Write every order matching the filters to the stream, one JSON document per line,
+     * archived orders first unless excluded, each pass oldest first. Null filters are unbounded.
+     * 
+     * @return number of orders written
+     */
+    public long exportOrders(LocalDateTime from, LocalDateTime to, OrderStatus status, boolean includeArchived,
+                             OutputStream out) throws IOException {
+        LocalDateTime until = to != null ? to : LATEST;
+        OrderCursor start = new OrderCursor(from != null ? from : EARLIEST, 0L);
+        long written = 0;
+        
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            if (includeArchived) {
+                written += writeChunks(generator, start, cursor -> orderArchive.findExportChunk(
+                    status, until, cursor.getCreatedAt(), cursor.getId(), chunkSize));
+            }
+            written += writeChunks(generator, start, cursor -> readChunk(status, until, cursor));
+        }
+        return written;
+    }
+    
+    /**
+     * Write chunks read after the cursor until one comes back short, returns the number of orders written
+     */
+    private long writeChunks(JsonGenerator generator, OrderCursor cursor,
+                             Function<OrderCursor, List<Order>> nextChunk) throws IOException {
+        long written = 0;
+        while (true) {
+            List<Order> chunk = nextChunk.apply(cursor);
+            for (Order order : chunk) {
+                objectMapper.writeValue(generator, order);
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            written += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return written;
+            }
+            cursor = OrderCursor.after(chunk.get(chunk.size() - 1));
+        }
+    }
+    
+    /**
+     * Load one chunk of live orders with their items; the entities are detached once the transaction ends
+     */
+    private List<Order> readChunk(OrderStatus status, LocalDateTime until, OrderCursor cursor) {
+        return readOnlyTransaction.execute(tx -> {
+            List<Order> chunk = status != null
+                ? orderRepository.findExportChunkByStatus(
+                      status, until, cursor.getCreatedAt(), cursor.getId(), Limit.of(chunkSize))
+                : orderRepository.findExportChunk(
+                      until, cursor.getCreatedAt(), cursor.getId(), Limit.of(chunkSize));
+            chunk.forEach(order -> Hibernate.initialize(order.getItems()));
+            return chunk;
+        });
+    }
+}
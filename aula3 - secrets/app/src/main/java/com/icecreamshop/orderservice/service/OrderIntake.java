@@ -0,0 +1,274 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.repository.OrderJdbcWriter;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Order Intake - Asynchronous write-behind for new orders
+ * 
+ * When icecream.intake.mode=async, OrderService assigns each validated order an id
+ * from a block reserved on the id sequence and queues it here. A single writer
+ * thread drains the queue and inserts whatever has accumulated, up to max-batch
+ * orders, in one transaction, then runs each order's after-commit hook. A failed
+ * batch is retried one order at a time, so a bad order does not take the others
+ * down with it.
+ * 
+ * Backpressure: a full queue makes the caller wait up to offer-timeout and then
+ * rejects the order with OrderIntakeUnavailableException.
+ * 
+ * Durability: with durability=accepted the caller returns as soon as the order is
+ * queued, so orders still queued when the process dies are lost (at most capacity
+ * plus the batch being written) even though they were acknowledged. Their ids are
+ * simply never used. With durability=committed the caller waits until the batch
+ * holding its order commits, so every acknowledged order is stored. If the commit
+ * takes longer than commit-timeout the caller returns anyway, like with accepted: the
+ * order keeps its id and is still written, so failing it would invite a duplicate. On an orderly
+ * shutdown new orders are refused and the queue is written out before the data
+ * source closes.
+ */
+@Component
+public class OrderIntake {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderIntake.class);
+    
+    private final DataSource dataSource;
+    private final OrderJdbcWriter orderJdbcWriter;
+    private final OrderRepository orderRepository;
+    private final boolean enabled;
+    private final boolean waitForCommit;
+    private final BlockingQueue<Entry> queue;
+    private final int maxBatch;
+    private final long offerTimeoutNanos;
+    private final long commitTimeoutNanos;
+    private final Counter rejected;
+    private final Counter failed;
+    private final Counter commitTimeouts;
+    private final DistributionSummary batchSizes;
+    private final Thread writer;
+    private volatile boolean running = true;
+    
+    // Next id of the reserved block, and the last id in it
+    private long nextId = 1;
+    private long lastId = 0;
+    
+    @Autowired
+    public OrderIntake(DataSource dataSource, OrderJdbcWriter orderJdbcWriter, OrderRepository orderRepository,
+                       MeterRegistry meterRegistry,
+                       @Value("${icecream.intake.mode:sync}") String mode,
+                       @Value("${icecream.intake.durability:accepted}") String durability,
+                       @Value("${icecream.intake.capacity:4096}") int capacity,
+                       @Value("${icecream.intake.max-batch:500}") int maxBatch,
+                       @Value("${icecream.intake.offer-timeout:50ms}") Duration offerTimeout,
+                       @Value("${icecream.intake.commit-timeout:5s}") Duration commitTimeout) {
+        this.dataSource = dataSource;
+        this.orderJdbcWriter = orderJdbcWriter;
+        this.orderRepository = orderRepository;
+        this.enabled = "async".equalsIgnoreCase(mode);
+        this.waitForCommit = "committed".equalsIgnoreCase(durability);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.commitTimeoutNanos = commitTimeout.toNanos();
+        this.rejected = Counter.builder("orders.intake.rejected")
+            .description("Orders refused because the intake queue stayed full")
+            .register(meterRegistry);
+        this.failed = Counter.builder("orders.intake.failed")
+            .description("Queued orders that could not be inserted")
+            .register(meterRegistry);
+        this.commitTimeouts = Counter.builder("orders.intake.commit-timeouts")
+            .description("Orders accepted without waiting for their commit, which took longer than commit-timeout")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("orders.intake.batch")
+            .description("Orders inserted per group commit")
+            .register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("orders.intake.queued", List.of(), queue);
+        this.writer = new Thread(this::drain, "order-intake-writer");
+        if (enabled) {
+            writer.start();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Assign the order an id from the reserved block
+     */
+    public synchronized long nextId() {
+        if (nextId > lastId) {
+            long top = orderRepository.nextIdBlock();
+            // Same rule as Hibernate's pooled optimizer: each sequence value is the top of a block
+            while (top < Order.ID_ALLOCATION_SIZE) {
+                top = orderRepository.nextIdBlock();
+            }
+            nextId = top - Order.ID_ALLOCATION_SIZE + 1;
+            lastId = top;
+        }
+        return nextId++;
+    }
+    
+    /**
+     * Queue an order that already has its id, running onCommitted on the writer thread once it
+     * is stored, or onFailed if it never will be
+     * 
+     * Waits for the commit when durability is committed, up to commit-timeout. An order
+     * that is not committed by then stays queued and is treated as accepted.
+     */
+    public void submit(Order order, Runnable onCommitted, Runnable onFailed) {
+        Entry entry = new Entry(order, onCommitted, onFailed);
+        boolean queued;
+        try {
+            queued = running && queue.offer(entry, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            rejected.increment();
+            onFailed.run();
+            throw new OrderIntakeUnavailableException("Order intake is full, retry shortly");
+        }
+        if (waitForCommit) {
+            awaitCommit(entry);
+        }
+    }
+    
+    private void awaitCommit(Entry entry) {
+        Order order = entry.order;
+        try {
+            entry.committed.get(commitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Only an order the writer has not taken yet can still be withdrawn
+            if (queue.remove(entry)) {
+                entry.onFailed.run();
+                throw new OrderIntakeUnavailableException("Interrupted while waiting for order " + order.getId());
+            }
+        } catch (TimeoutException e) {
+            commitTimeouts.increment();
+            log.warn("Order {} was queued but not committed within the commit timeout", order.getId());
+        } catch (ExecutionException e) {
+            throw new OrderIntakeUnavailableException("Order " + order.getId() + " could not be stored");
+        }
+    }
+    
+    /**
+     * Refuse new orders and write out the queued ones
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (enabled) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            if (!queue.isEmpty()) {
+                log.warn("Order intake stopped with {} orders still queued", queue.size());
+            }
+        }
+    }
+    
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake writer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void write(List<Entry> batch) {
+        try {
+            insert(batch);
+        } catch (SQLException | RuntimeException e) {
+            if (batch.size() == 1) {
+                Entry entry = batch.get(0);
+                failed.increment();
+                log.error("Dropping queued order {}", entry.order.getId(), e);
+                entry.onFailed.run();
+                entry.committed.completeExceptionally(e);
+                return;
+            }
+            for (Entry entry : batch) {
+                write(List.of(entry));
+            }
+            return;
+        }
+        batchSizes.record(batch.size());
+        for (Entry entry : batch) {
+            try {
+                entry.onCommitted.run();
+            } catch (RuntimeException e) {
+                log.warn("After-commit hook failed for order {}", entry.order.getId(), e);
+            }
+            entry.committed.complete(null);
+        }
+    }
+    
+    private void insert(List<Entry> batch) throws SQLException {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            orders.add(entry.order);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                orderJdbcWriter.insert(connection, orders);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+    
+    private static final class Entry {
+        private final Order order;
+        private final Runnable onCommitted;
+        private final Runnable onFailed;
+        private final CompletableFuture<Void> committed = new CompletableFuture<>();
+    
+        Entry(Order order, Runnable onCommitted, Runnable onFailed) {
+            this.order = order;
+            this.onCommitted = onCommitted;
+            this.onFailed = onFailed;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.icecreamshop.orderservice.service;
+
+/**
+ * Thrown when the asynchronous order intake cannot accept or commit an order in time
+ */
+public class OrderIntakeUnavailableException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public OrderIntakeUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,79 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order Metrics - Business meters recorded by OrderService
+ * 
+ * orders.created counts committed orders; orders.status.transition times every
+ * committed status change, from the start of the service call to commit, tagged
+ * with the from and to status and whether it was a single or bulk change. All
+ * meters are registered up front and looked up by array index, so recording
+ * never touches the registry.
+ */
+@Component
+public class OrderMetrics {
+    
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    
+    private final Counter created;
+    private final Timer[][] singleTransitions = new Timer[STATUSES.length][STATUSES.length];
+    private final Timer[][] bulkTransitions = new Timer[STATUSES.length][STATUSES.length];
+    
+    @Autowired
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.created = Counter.builder("orders.created")
+            .description("Orders committed")
+            .register(meterRegistry);
+        for (OrderStatus from : STATUSES) {
+            for (OrderStatus to : STATUSES) {
+                if (from.canTransitionTo(to)) {
+                    singleTransitions[from.ordinal()][to.ordinal()] = transitionTimer(meterRegistry, from, to, "single");
+                    bulkTransitions[from.ordinal()][to.ordinal()] = transitionTimer(meterRegistry, from, to, "bulk");
+                }
+            }
+        }
+    }
+    
+    public void recordCreated(int count) {
+        created.increment(count);
+    }
+    
+    /**
+     * Record a committed single-order transition that started at the given System.nanoTime()
+     */
+    public void recordTransition(OrderStatus from, OrderStatus to, long startedNanos) {
+        record(singleTransitions, from, to, startedNanos);
+    }
+    
+    /**
+     * Record a committed bulk transition once per previous status it moved orders from
+     */
+    public void recordBulkTransition(OrderStatus from, OrderStatus to, long startedNanos) {
+        record(bulkTransitions, from, to, startedNanos);
+    }
+    
+    private static void record(Timer[][] timers, OrderStatus from, OrderStatus to, long startedNanos) {
+        Timer timer = timers[from.ordinal()][to.ordinal()];
+        if (timer != null) {
+            timer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static Timer transitionTimer(MeterRegistry meterRegistry, OrderStatus from, OrderStatus to, String mode) {
+        return Timer.builder("orders.status.transition")
+            .description("Status transition latency up to commit")
+            .tag("from", from.name())
+            .tag("to", to.name())
+            .tag("mode", mode)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
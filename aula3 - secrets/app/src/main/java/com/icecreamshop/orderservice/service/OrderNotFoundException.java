@@ -0,0 +1,18 @@
+package com.icecreamshop.orderservice.service;
+
+/**
+ * Thrown when an order id does not exist
+ */
+public class OrderNotFoundException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long orderId;
+    
+    public OrderNotFoundException(Long orderId) {
+        super("Order not found with ID: " + orderId);
+        this.orderId = orderId;
+    }
+    
+    public Long getOrderId() { return orderId; }
+}
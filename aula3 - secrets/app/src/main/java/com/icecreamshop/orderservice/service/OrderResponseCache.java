@@ -0,0 +1,145 @@
+package com.icecreamshop.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.icecreamshop.orderservice.config.ReadWriteRoutingDataSource;
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Order Response Cache - Bounded cache of serialized order JSON, keyed by order id
+ * 
+ * Entries are evicted by size or age. Orders in a terminal status rarely change and
+ * are kept longer. OrderService invalidates an entry after every committed write to
+ * that order; hit and miss counts are published as cache.* metrics tagged
+ * cache=orders.response.
+ */
+@Component
+public class OrderResponseCache {
+    
+    private final OrderRepository orderRepository;
+    private final OrderArchiveStore orderArchive;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, CachedOrder> cache;
+    
+    @Autowired
+    public OrderResponseCache(OrderRepository orderRepository, OrderArchiveStore orderArchive,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${icecream.cache.order.max-entries:10000}") long maxEntries,
+                              @Value("${icecream.cache.order.active-ttl:60s}") Duration activeTtl,
+                              @Value("${icecream.cache.order.terminal-ttl:1h}") Duration terminalTtl) {
+        this.orderRepository = orderRepository;
+        this.orderArchive = orderArchive;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfter(new StatusExpiry(activeTtl, terminalTtl))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "orders.response");
+    }
+    
+    /**
+     * Serialized order, loaded and cached on a miss, or null when the order does not exist
+     */
+    public CachedOrder get(Long orderId) {
+        return cache.get(orderId, this::load);
+    }
+    
+    /**
+     * Cached entry if present, without loading on a miss
+     */
+    public CachedOrder peek(Long orderId) {
+        return cache.getIfPresent(orderId);
+    }
+    
+    public void invalidate(Long orderId) {
+        cache.invalidate(orderId);
+    }
+    
+    public void invalidateAll(Collection<Long> orderIds) {
+        cache.invalidateAll(orderIds);
+    }
+    
+    private CachedOrder load(Long orderId) {
+        // Commits invalidate entries, so reload from the primary: a lagging replica would cache the old order
+        return ReadWriteRoutingDataSource.onPrimary(() -> orderRepository.findById(orderId)
+            .or(() -> orderArchive.findById(orderId))
+            .map(this::serialize)
+            .orElse(null));
+    }
+    
+    private CachedOrder serialize(Order order) {
+        try {
+            return new CachedOrder(objectMapper.writeValueAsBytes(order), order.getStatus(), order.getVersion(),
+                                   order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getId(), e);
+        }
+    }
+    
+    /**
+     * Serialized order with the fields needed to choose its lifetime
+     */
+    public static class CachedOrder {
+        private final byte[] json;
+        private final OrderStatus status;
+        private final Long version;
+        private final LocalDateTime lastModified;
+        
+        public CachedOrder(byte[] json, OrderStatus status, Long version, LocalDateTime lastModified) {
+            this.json = json;
+            this.status = status;
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+        
+        public byte[] getJson() { return json; }
+        public OrderStatus getStatus() { return status; }
+        public Long getVersion() { return version; }
+        public LocalDateTime getLastModified() { return lastModified; }
+    }
+    
+    /**
+     * Time-to-live chosen per entry from the order's status
+     */
+    private static class StatusExpiry implements Expiry<Long, CachedOrder> {
+        private final long activeNanos;
+        private final long terminalNanos;
+        
+        StatusExpiry(Duration activeTtl, Duration terminalTtl) {
+            this.activeNanos = activeTtl.toNanos();
+            this.terminalNanos = terminalTtl.toNanos();
+        }
+        
+        @Override
+        public long expireAfterCreate(Long key, CachedOrder value, long currentTime) {
+            return value.getStatus().isTerminal() ? terminalNanos : activeNanos;
+        }
+        
+        @Override
+        public long expireAfterUpdate(Long key, CachedOrder value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(Long key, CachedOrder value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Order Search Index - In-memory trigram index over customer name and delivery address
+ * 
+ * Every lowercase three-character window of a field maps to a sorted posting list
+ * of order ids. A substring query intersects the posting lists of its own trigrams,
+ * which yields a superset of the matching orders; callers re-check the candidates
+ * with the exact predicate. Queries shorter than a trigram, containing LIKE
+ * wildcards, or matching too many orders to be worth intersecting, are left to
+ * the database.
+ */
+@Component
+public class OrderSearchIndex {
+    
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Value("${icecream.search.max-candidates:1000}")
+    private Integer maxCandidates;
+    
+    private final TrigramIndex customerNames = new TrigramIndex();
+    private final TrigramIndex deliveryAddresses = new TrigramIndex();
+    private volatile boolean ready;
+    
+    /**
+     * Build the index from every stored order
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = orderRepository.findSearchableFieldsAfter(lastId, Limit.of(REBUILD_CHUNK_SIZE));
+            for (Object[] row : rows) {
+                long id = (Long) row[0];
+                customerNames.add(id, (String) row[1]);
+                deliveryAddresses.add(id, (String) row[2]);
+                lastId = id;
+            }
+            if (rows.size() < REBUILD_CHUNK_SIZE) {
+                break;
+            }
+        }
+        ready = true;
+    }
+    
+    public void add(Order order) {
+        add(order.getId(), order.getCustomerName(), order.getDeliveryAddress());
+    }
+    
+    public void add(long id, String customerName, String deliveryAddress) {
+        customerNames.add(id, customerName);
+        deliveryAddresses.add(id, deliveryAddress);
+    }
+    
+    /**
+     * Drop an order indexed with the given values
+     */
+    public void remove(long id, String customerName, String deliveryAddress) {
+        customerNames.remove(id, customerName);
+        deliveryAddresses.remove(id, deliveryAddress);
+    }
+    
+    /**
+     * Candidate order ids whose customer name may contain the text,
+     * or null when the database should answer instead
+     */
+    public long[] customerNameCandidates(String text) {
+        return candidates(customerNames, text);
+    }
+    
+    /**
+     * Candidate order ids whose delivery address may contain the text,
+     * or null when the database should answer instead
+     */
+    public long[] deliveryAddressCandidates(String text) {
+        return candidates(deliveryAddresses, text);
+    }
+    
+    private long[] candidates(TrigramIndex index, String text) {
+        // LIKE wildcards in the text have no trigram equivalent
+        if (!ready || text == null || text.length() < 3 || text.indexOf('%') >= 0 || text.indexOf('_') >= 0) {
+            return null;
+        }
+        long[] ids = index.search(text);
+        return ids.length > maxCandidates ? null : ids;
+    }
+    
+    /**
+     * Trigram to posting list map for one field
+     */
+    static final class TrigramIndex {
+        
+        private final Map<Long, PostingList> postings = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        
+        void add(long id, String value) {
+            if (value == null) {
+                return;
+            }
+            long[] trigrams = trigrams(value);
+            lock.writeLock().lock();
+            try {
+                for (long trigram : trigrams) {
+                    postings.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        void remove(long id, String value) {
+            if (value == null) {
+                return;
+            }
+            long[] trigrams = trigrams(value);
+            lock.writeLock().lock();
+            try {
+                for (long trigram : trigrams) {
+                    PostingList list = postings.get(trigram);
+                    if (list != null && list.remove(id) && list.size == 0) {
+                        postings.remove(trigram);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        long[] search(String text) {
+            long[] trigrams = trigrams(text);
+            lock.readLock().lock();
+            try {
+                PostingList[] lists = new PostingList[trigrams.length];
+                for (int i = 0; i < trigrams.length; i++) {
+                    lists[i] = postings.get(trigrams[i]);
+                    if (lists[i] == null) {
+                        return new long[0];
+                    }
+                }
+                // Intersect starting from the rarest trigram to keep intermediate results small
+                Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+                long[] result = Arrays.copyOf(lists[0].ids, lists[0].size);
+                for (int i = 1; i < lists.length && result.length > 0; i++) {
+                    result = lists[i].intersect(result);
+                }
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        /**
+         * Distinct trigrams of the lowercased value, each packed into a long
+         */
+        static long[] trigrams(String value) {
+            String text = value.toLowerCase(Locale.ROOT);
+            if (text.length() < 3) {
+                return new long[0];
+            }
+            long[] trigrams = new long[text.length() - 2];
+            for (int i = 0; i < trigrams.length; i++) {
+                trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+            }
+            return Arrays.stream(trigrams).distinct().toArray();
+        }
+    }
+    
+    /**
+     * Growable sorted array of order ids
+     */
+    static final class PostingList {
+        
+        private long[] ids = new long[4];
+        private int size;
+        
+        void add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+        
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+        
+        /**
+         * Ids present both in this list and in the sorted candidates
+         */
+        long[] intersect(long[] candidates) {
+            long[] result = new long[Math.min(size, candidates.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < candidates.length) {
+                if (ids[i] < candidates[j]) {
+                    i++;
+                } else if (ids[i] > candidates[j]) {
+                    j++;
+                } else {
+                    result[count++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
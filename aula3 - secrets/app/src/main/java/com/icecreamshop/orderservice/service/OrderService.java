@@ -1,15 +1,36 @@
 package com.icecreamshop.orderservice.service;
 
 import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
 import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.OrderSummary;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
 import com.icecreamshop.orderservice.repository.OrderRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Order Service - Business logic for ice cream orders
@@ -17,15 +38,71 @@ import java.util.Optional;
 @Service
 public class OrderService {
     
+    private static final Comparator<Order> NEWEST_FIRST =
+        Comparator.comparing(Order::getCreatedAt).thenComparing(Order::getId).reversed();
+    private static final Comparator<OrderSummary> NEWEST_SUMMARY_FIRST =
+        Comparator.comparing(OrderSummary::getCreatedAt).thenComparing(OrderSummary::getId).reversed();
+    
     @Autowired
     private OrderRepository orderRepository;
     
+    @Autowired
+    private OrderArchiveStore orderArchive;
+    
+    @Autowired
+    private OrderStatisticsTracker statisticsTracker;
+    
+    @Autowired
+    private OrderSearchIndex searchIndex;
+    
+    @Autowired
+    private OrderResponseCache responseCache;
+    
+    @Autowired
+    private OrderEventBroadcaster eventBroadcaster;
+    
+    @Autowired
+    private RecentOrderWindow recentOrderWindow;
+    
+    @Autowired
+    private OrderMetrics orderMetrics;
+    
+    @Autowired
+    private RevenueRollup revenueRollup;
+    
+    @Autowired
+    private CustomerOrderIndex customerOrderIndex;
+    
+    @Autowired
+    private CustomerHistoryCache customerHistories;
+    
+    @Autowired
+    private OrderIntake orderIntake;
+    
+    @Autowired
+    private FlavorInventory inventory;
+    
+    @Autowired
+    private Validator validator;
+    
     @Value("${icecream.order.max.quantity:50}")
     private Integer maxOrderQuantity;
     
+    @Value("${icecream.order.batch.max-size:500}")
+    private Integer maxBatchSize;
+    
+    @Value("${icecream.order.bulk.max-size:1000}")
+    private Integer maxBulkSize;
+    
     @Value("${icecream.delivery.radius.km:25}")
     private Integer deliveryRadiusKm;
     
+    @Value("${icecream.page.default-size:50}")
+    private Integer defaultPageSize;
+    
+    @Value("${icecream.page.max-size:200}")
+    private Integer maxPageSize;
+    
     // Sensitive data in service (SECURITY RISK!)
     @Value("${admin.username}")
     private String adminUsername;
@@ -38,65 +115,373 @@ public class OrderService {
     
     /**
      * Create a new ice cream order
+     * 
+     * Stock for every item is reserved first, all or nothing. With asynchronous intake
+     * the order gets its id right away and is queued for the intake writer; it is
+     * stored once its batch commits.
      */
     public Order createOrder(Order order) {
         validateOrder(order);
-        order.setStatus(OrderStatus.PENDING);
-        order.setCreatedAt(LocalDateTime.now());
+        prepareNewOrder(order);
+        FlavorInventory.Reservation reservation = inventory.reserve(order.getItems());
+        // Begun before the order can commit, so a reconciliation in between does not count it twice
+        OrderStatisticsTracker.Change statistics = statisticsTracker.created(order.getStatus());
+        RevenueRollup.Delta revenue = revenueRollup.created(order);
+        Runnable discard = () -> {
+            inventory.release(reservation);
+            statisticsTracker.discard(statistics);
+            revenueRollup.discard(revenue);
+        };
         
-        // Calculate estimated delivery time (30-60 minutes)
-        order.setEstimatedDeliveryTime(
-            LocalDateTime.now().plusMinutes(30 + (int)(Math.random() * 30))
-        );
+        if (orderIntake.isEnabled()) {
+            order.setId(orderIntake.nextId());
+            order.setVersion(0L);
+            orderIntake.submit(order, () -> onOrderCreated(order, statistics, revenue), discard);
+            return order;
+        }
+        Order savedOrder;
+        try {
+            savedOrder = orderRepository.save(order);
+        } catch (RuntimeException e) {
+            discard.run();
+            throw e;
+        }
+        onOrderCreated(savedOrder, statistics, revenue);
+        return savedOrder;
+    }
+    
+    /**
+     * Whether createOrder only queues orders, to be stored shortly after it returns
+     */
+    public boolean isAsyncIntake() {
+        return orderIntake.isEnabled();
+    }
+    
+    /**
+     * Create a batch of orders in one transaction
+     * 
+     * Each order is validated on its own; invalid orders are reported and skipped,
+     * the valid ones are inserted together using JDBC batching.
+     */
+    @Transactional
+    public BatchResult createOrders(List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one order");
+        }
+        if (orders.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size exceeds maximum allowed: " + maxBatchSize);
+        }
+        
+        List<BatchItemResult> results = new ArrayList<>(orders.size());
+        List<Order> accepted = new ArrayList<>(orders.size());
+        List<FlavorInventory.Reservation> reservations = new ArrayList<>(orders.size());
+        afterRollback(() -> reservations.forEach(inventory::release));
+        for (int index = 0; index < orders.size(); index++) {
+            Order order = orders.get(index);
+            String error = batchValidationError(order);
+            if (error != null) {
+                results.add(BatchItemResult.rejected(index, error));
+                continue;
+            }
+            try {
+                reservations.add(inventory.reserve(order.getItems()));
+            } catch (OutOfStockException e) {
+                results.add(BatchItemResult.rejected(index, e.getMessage()));
+                continue;
+            }
+            prepareNewOrder(order);
+            accepted.add(order);
+            results.add(null);
+        }
         
-        return orderRepository.save(order);
+        List<Order> savedOrders = orderRepository.saveAll(accepted);
+        int next = 0;
+        for (int index = 0; index < results.size(); index++) {
+            if (results.get(index) == null) {
+                Order savedOrder = savedOrders.get(next++);
+                results.set(index, BatchItemResult.created(index, savedOrder.getId()));
+                onOrderCreated(savedOrder, statisticsTracker.created(savedOrder.getStatus()),
+                               revenueRollup.created(savedOrder));
+            }
+        }
+        return new BatchResult(results);
+    }
+    
+    /**
+     * Get a page of all orders
+     */
+    @Transactional(readOnly = true)
+    public OrderPage getAllOrders(String cursor, Integer limit) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        return toPage(orderRepository.findPage(after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
     }
     
     /**
-     * Get all orders
+     * Get a page of order summaries, optionally filtered by status or customer email
      */
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    @Transactional(readOnly = true)
+    public SummaryPage getOrderSummaries(OrderStatus status, String email, String cursor, Integer limit) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        List<OrderSummary> rows;
+        if (status != null) {
+            rows = orderRepository.findSummaryPageByStatus(
+                status, after.getCreatedAt(), after.getId(), Limit.of(size + 1));
+        } else if (email != null) {
+            String normalizedEmail = Order.normalizeEmail(email);
+            rows = mergePages(
+                orderRepository.findSummaryPageByCustomerEmail(
+                    normalizedEmail, after.getCreatedAt(), after.getId(), Limit.of(size + 1)),
+                orderArchive.findSummaryPageByCustomerEmail(
+                    normalizedEmail, after.getCreatedAt(), after.getId(), size + 1),
+                NEWEST_SUMMARY_FIRST, size + 1);
+        } else {
+            rows = orderRepository.findSummaryPage(after.getCreatedAt(), after.getId(), Limit.of(size + 1));
+        }
+        if (rows.size() <= size) {
+            return new SummaryPage(rows, null);
+        }
+        List<OrderSummary> summaries = new ArrayList<>(rows.subList(0, size));
+        OrderSummary last = summaries.get(size - 1);
+        return new SummaryPage(summaries, new OrderCursor(last.getCreatedAt(), last.getId()).encode());
     }
     
     /**
-     * Get order by ID
+     * Get order by ID, live or archived
      */
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findById(id).or(() -> orderArchive.findById(id));
+    }
+    
+    /**
+     * Get an order by ID already serialized as JSON, served from the response cache
+     */
+    public Optional<OrderResponseCache.CachedOrder> getOrderJsonById(Long id) {
+        return Optional.ofNullable(responseCache.get(id));
+    }
+    
+    /**
+     * Get a page of orders by customer email
+     * 
+     * Served from the customer's cached history when the index is ready: the page
+     * is a slice of ids, fetched by primary key in one query. Archived orders are
+     * included either way.
+     */
+    public OrderPage getOrdersByCustomerEmail(String email, String cursor, Integer limit) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        String normalizedEmail = Order.normalizeEmail(email);
+        CustomerHistoryCache.History history = customerHistories.get(normalizedEmail);
+        if (history != null) {
+            return toPage(findAllInOrder(history.page(after, size + 1)), size);
+        }
+        return toPage(mergePages(
+            orderRepository.findPageByCustomerEmail(
+                normalizedEmail, after.getCreatedAt(), after.getId(), Limit.of(size + 1)),
+            orderArchive.findPageByCustomerEmail(normalizedEmail, after.getCreatedAt(), after.getId(), size + 1),
+            NEWEST_FIRST, size + 1), size);
     }
     
     /**
-     * Get orders by customer email
+     * Get a page of orders by status
      */
-    public List<Order> getOrdersByCustomerEmail(String email) {
-        return orderRepository.findByCustomerEmailIgnoreCase(email);
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByStatus(OrderStatus status, String cursor, Integer limit) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        return toPage(orderRepository.findPageByStatus(
+            status, after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
     }
     
     /**
-     * Get orders by status
+     * Version and last modification time of an order, from the response cache or a single-row projection
      */
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    public Optional<OrderVersion> getOrderVersion(Long id) {
+        OrderResponseCache.CachedOrder cached = responseCache.peek(id);
+        if (cached != null) {
+            return Optional.of(new OrderVersion(cached.getVersion(), cached.getLastModified()));
+        }
+        List<Object[]> rows = orderRepository.findVersionAndLastModifiedById(id);
+        if (rows.isEmpty()) {
+            rows = orderArchive.findVersionAndLastModifiedById(id);
+        }
+        return rows.stream()
+            .findFirst()
+            .map(row -> new OrderVersion((Long) row[0], (LocalDateTime) row[1]));
+    }
+    
+    /**
+     * Open an event stream for one order, starting with its current status
+     */
+    public SseEmitter subscribeToOrderEvents(Long orderId) {
+        SseEmitter emitter = eventBroadcaster.subscribeToOrder(orderId, () -> {
+            OrderResponseCache.CachedOrder cached = responseCache.get(orderId);
+            return cached == null ? null : cached.getStatus();
+        });
+        if (emitter == null) {
+            throw new OrderNotFoundException(orderId);
+        }
+        return emitter;
+    }
+    
+    /**
+     * Open an event stream of orders moving into a status, or of all orders when status is null
+     */
+    public SseEmitter subscribeToStatusEvents(OrderStatus status) {
+        return eventBroadcaster.subscribeToOrders(status);
     }
     
     /**
      * Update order status
      */
+    @Transactional
     public Order updateOrderStatus(Long orderId, OrderStatus newStatus) {
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isPresent()) {
-            Order order = orderOpt.get();
-            order.setStatus(newStatus);
-            order.setUpdatedAt(LocalDateTime.now());
-            return orderRepository.save(order);
+        return updateOrderStatus(orderId, newStatus, null, null);
+    }
+    
+    /**
+     * Update order status with a compare-and-set on its current status and version
+     * 
+     * Never blocks on concurrent writers: if the order changed since it was read, or
+     * the caller's expected status or version no longer match, the transition fails
+     * with an OrderStatusConflictException instead of overwriting the other update.
+     * An archived order is moved back to the live table first.
+     */
+    @Transactional
+    public Order updateOrderStatus(Long orderId, OrderStatus newStatus,
+                                   OrderStatus expectedStatus, Long expectedVersion) {
+        long started = System.nanoTime();
+        Object[] current = currentStatusAndVersion(orderId);
+        OrderStatus currentStatus = (OrderStatus) current[0];
+        Long currentVersion = (Long) current[1];
+        
+        if ((expectedStatus != null && expectedStatus != currentStatus)
+                || (expectedVersion != null && !expectedVersion.equals(currentVersion))) {
+            throw new OrderStatusConflictException(orderId, currentStatus, currentVersion, newStatus,
+                "Order " + orderId + " is " + currentStatus + " at version " + currentVersion);
+        }
+        if (currentStatus == newStatus) {
+            return orderRepository.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        }
+        if (!currentStatus.canTransitionTo(newStatus)) {
+            throw new OrderStatusConflictException(orderId, currentStatus, currentVersion, newStatus,
+                "Order " + orderId + " cannot move from " + currentStatus + " to " + newStatus);
+        }
+        
+        int updated = orderRepository.compareAndSetStatus(
+            orderId, currentStatus, currentVersion, newStatus, LocalDateTime.now());
+        if (updated == 0) {
+            Object[] actual = currentStatusAndVersion(orderId);
+            throw new OrderStatusConflictException(orderId, (OrderStatus) actual[0], (Long) actual[1], newStatus,
+                "Order " + orderId + " was modified concurrently");
+        }
+        Order updatedOrder = orderRepository.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        onStatusChanged(updatedOrder, currentStatus, started);
+        return updatedOrder;
+    }
+    
+    private Object[] currentStatusAndVersion(Long orderId) {
+        List<Object[]> rows = orderRepository.findStatusAndVersionById(orderId);
+        if (rows.isEmpty() && restoreArchived(List.of(orderId))) {
+            rows = orderRepository.findStatusAndVersionById(orderId);
+        }
+        if (rows.isEmpty()) {
+            throw new OrderNotFoundException(orderId);
+        }
+        return rows.get(0);
+    }
+    
+    /**
+     * Move many orders to a new status with one set-based UPDATE
+     * 
+     * Orders are selected by id, by current status, or both; without ids the oldest
+     * orders in the given status are taken, up to the bulk limit. Orders already in
+     * the target status, or that cannot legally move to it, are left untouched.
+     * Archived orders are only considered when selected by id.
+     */
+    @Transactional
+    public BulkTransitionResult transitionOrders(Collection<Long> ids, OrderStatus fromStatus,
+                                                 OrderStatus toStatus) {
+        long started = System.nanoTime();
+        if (toStatus == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        boolean byIds = ids != null && !ids.isEmpty();
+        if (!byIds && fromStatus == null) {
+            throw new IllegalArgumentException("Order ids or a current status are required");
+        }
+        if (byIds && ids.size() > maxBulkSize) {
+            throw new IllegalArgumentException("Bulk size exceeds maximum allowed: " + maxBulkSize);
+        }
+        if (fromStatus == toStatus) {
+            return new BulkTransitionResult(List.of());
+        }
+        if (fromStatus != null && !fromStatus.canTransitionTo(toStatus)) {
+            throw new IllegalArgumentException("Orders cannot move from " + fromStatus + " to " + toStatus);
         }
-        throw new RuntimeException("Order not found with ID: " + orderId);
+        
+        if (byIds && archivedOrdersCanMove(fromStatus, toStatus)) {
+            restoreArchived(ids);
+        }
+        List<Object[]> rows;
+        if (!byIds) {
+            rows = orderRepository.lockStatusesByStatus(fromStatus, Limit.of(maxBulkSize));
+        } else if (fromStatus != null) {
+            rows = orderRepository.lockStatusesByIdInAndStatus(ids, fromStatus);
+        } else {
+            rows = orderRepository.lockStatusesByIdIn(ids, toStatus);
+        }
+        if (rows.isEmpty()) {
+            return new BulkTransitionResult(List.of());
+        }
+        
+        List<Long> orderIds = new ArrayList<>(rows.size());
+        List<OrderStatusEvent> events = new ArrayList<>(rows.size());
+        Map<Long, LocalDateTime> createdAt = new HashMap<>();
+        Map<Long, OrderStatus> previousStatuses = new HashMap<>();
+        Map<OrderStatus, Long> transitionsFrom = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : rows) {
+            OrderStatus previousStatus = (OrderStatus) row[1];
+            if (previousStatus.canTransitionTo(toStatus)) {
+                orderIds.add((Long) row[0]);
+                events.add(new OrderStatusEvent((Long) row[0], previousStatus, toStatus));
+                createdAt.put((Long) row[0], (LocalDateTime) row[2]);
+                previousStatuses.put((Long) row[0], previousStatus);
+                transitionsFrom.merge(previousStatus, 1L, Long::sum);
+            }
+        }
+        if (orderIds.isEmpty()) {
+            return new BulkTransitionResult(List.of());
+        }
+        LocalDateTime updatedAt = LocalDateTime.now();
+        orderRepository.updateStatusByIdIn(orderIds, toStatus, updatedAt);
+        RevenueRollup.Delta revenue = revenueRollup.transitioned(previousStatuses, toStatus);
+        FlavorInventory.Reservation released = releasedStock(previousStatuses, toStatus);
+        List<OrderStatisticsTracker.Change> statistics = new ArrayList<>(transitionsFrom.size());
+        transitionsFrom.forEach((previousStatus, count) ->
+            statistics.add(statisticsTracker.transitioned(previousStatus, toStatus, count)));
+        afterCommit(() -> {
+            statistics.forEach(statisticsTracker::apply);
+            revenueRollup.apply(revenue);
+            transitionsFrom.forEach((previousStatus, count) ->
+                orderMetrics.recordBulkTransition(previousStatus, toStatus, started));
+            inventory.release(released);
+            responseCache.invalidateAll(orderIds);
+            createdAt.forEach((orderId, created) -> recentOrderWindow.transition(orderId, created, toStatus, updatedAt));
+            eventBroadcaster.publishAll(events);
+        }, () -> {
+            statistics.forEach(statisticsTracker::discard);
+            revenueRollup.discard(revenue);
+        });
+        return new BulkTransitionResult(orderIds);
     }
     
     /**
      * Cancel order
      */
+    @Transactional
     public Order cancelOrder(Long orderId) {
         return updateOrderStatus(orderId, OrderStatus.CANCELLED);
     }
@@ -104,43 +489,141 @@ public class OrderService {
     /**
      * Mark order as delivered
      */
+    @Transactional
     public Order markAsDelivered(Long orderId) {
         return updateOrderStatus(orderId, OrderStatus.DELIVERED);
     }
     
     /**
-     * Get recent orders (last 24 hours)
+     * Get a page of recent orders created since the given time (default: last 24 hours)
+     * 
+     * Served from the in-memory window when it covers the requested range.
      */
-    public List<Order> getRecentOrders() {
-        LocalDateTime since = LocalDateTime.now().minusHours(24);
-        return orderRepository.findRecentOrders(since);
+    @Transactional(readOnly = true)
+    public OrderPage getRecentOrders(LocalDateTime since, String cursor, Integer limit) {
+        LocalDateTime from = since != null ? since : LocalDateTime.now().minusHours(24);
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        if (recentOrderWindow.covers(from)) {
+            return toPage(recentOrderWindow.page(from, after, size + 1), size);
+        }
+        return toPage(orderRepository.findRecentPage(
+            from, after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
     }
     
     /**
-     * Search orders by customer name
+     * Search a page of orders by customer name
      */
-    public List<Order> searchOrdersByCustomerName(String customerName) {
-        return orderRepository.findByCustomerNameContainingIgnoreCase(customerName);
+    @Transactional(readOnly = true)
+    public OrderPage searchOrdersByCustomerName(String customerName, String cursor, Integer limit) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        long[] candidates = searchIndex.customerNameCandidates(customerName);
+        if (candidates == null) {
+            return toPage(orderRepository.findPageByCustomerName(
+                customerName, after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
+        }
+        if (candidates.length == 0) {
+            return new OrderPage(List.of(), null);
+        }
+        return toPage(orderRepository.findPageByIdInAndCustomerName(
+            boxed(candidates), customerName, after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
+    }
+    
+    /**
+     * Search a page of orders by delivery address
+     */
+    @Transactional(readOnly = true)
+    public OrderPage searchOrdersByDeliveryAddress(String address, String cursor, Integer limit) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int size = pageSize(limit);
+        long[] candidates = searchIndex.deliveryAddressCandidates(address);
+        if (candidates == null) {
+            return toPage(orderRepository.findPageByDeliveryAddress(
+                address, after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
+        }
+        if (candidates.length == 0) {
+            return new OrderPage(List.of(), null);
+        }
+        return toPage(orderRepository.findPageByIdInAndDeliveryAddress(
+            boxed(candidates), address, after.getCreatedAt(), after.getId(), Limit.of(size + 1)), size);
     }
     
     /**
      * Get order statistics
      */
     public OrderStatistics getOrderStatistics() {
-        Long totalOrders = orderRepository.count();
-        Long pendingOrders = orderRepository.countByStatus(OrderStatus.PENDING);
-        Long confirmedOrders = orderRepository.countByStatus(OrderStatus.CONFIRMED);
-        Long deliveredOrders = orderRepository.countByStatus(OrderStatus.DELIVERED);
-        Long cancelledOrders = orderRepository.countByStatus(OrderStatus.CANCELLED);
+        return new OrderStatistics(statisticsTracker.snapshot());
+    }
+    
+    /**
+     * Get revenue for orders placed in a time range (default: the last 30 days), from the rollups
+     */
+    public RevenueRollup.RevenueReport getRevenueReport(LocalDateTime from, LocalDateTime to,
+                                                        String granularity, String breakdown) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        return revenueRollup.report(start, end, RevenueRollup.Granularity.parse(granularity),
+                                    RevenueRollup.Breakdown.parse(breakdown));
+    }
+    
+    /**
+     * Get the stock of every tracked flavor and size
+     */
+    public List<FlavorInventory.StockLevel> getInventory() {
+        return inventory.levels();
+    }
+    
+    /**
+     * Set the available stock of a flavor and size
+     */
+    public FlavorInventory.StockLevel setStock(String flavor, String size, long available) {
+        return inventory.setStock(flavor, size, available);
+    }
+    
+    /**
+     * Reset server-controlled fields of an order about to be inserted
+     */
+    private void prepareNewOrder(Order order) {
+        order.setId(null);
+        order.setVersion(null);
+        order.setStatus(OrderStatus.PENDING);
+        // Stored timestamps keep microseconds; match them so in-memory views sort like the database
+        order.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        order.setUpdatedAt(null);
         
-        return new OrderStatistics(totalOrders, pendingOrders, confirmedOrders, 
-                                 deliveredOrders, cancelledOrders);
+        // Calculate estimated delivery time (30-60 minutes)
+        order.setEstimatedDeliveryTime(
+            LocalDateTime.now().plusMinutes(30 + (int)(Math.random() * 30))
+        );
     }
     
     /**
-     * Validate order before saving
+     * Bean Validation and business rules for one order of a batch, null when valid
      */
-    private void validateOrder(Order order) {
+    private String batchValidationError(Order order) {
+        if (order == null) {
+            return "Order is required";
+        }
+        Set<ConstraintViolation<Order>> violations = validator.validate(order);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        }
+        try {
+            validateOrder(order);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+    
+    /**
+     * Validate order before saving (package-private for the benchmarks)
+     */
+    void validateOrder(Order order) {
         if (order.getItems() == null || order.getItems().isEmpty()) {
             throw new IllegalArgumentException("Order must contain at least one item");
         }
@@ -155,6 +638,230 @@ public class OrderService {
         }
     }
     
+    /**
+     * Propagate a newly stored order to the in-memory views
+     */
+    private void onOrderCreated(Order order, OrderStatisticsTracker.Change statistics, RevenueRollup.Delta revenue) {
+        afterCommit(() -> {
+            statisticsTracker.apply(statistics);
+            revenueRollup.apply(revenue);
+            orderMetrics.recordCreated(1);
+            searchIndex.add(order);
+            customerOrderIndex.add(order);
+            customerHistories.invalidate(Order.normalizeEmail(order.getCustomerEmail()));
+            responseCache.invalidate(order.getId());
+            recentOrderWindow.add(order);
+            eventBroadcaster.publish(new OrderStatusEvent(order.getId(), null, order.getStatus()));
+        }, () -> {
+            statisticsTracker.discard(statistics);
+            revenueRollup.discard(revenue);
+        });
+    }
+    
+    /**
+     * Propagate a stored status transition to the in-memory views
+     */
+    private void onStatusChanged(Order order, OrderStatus previousStatus, long startedNanos) {
+        RevenueRollup.Delta revenue = revenueRollup.transitioned(order, previousStatus);
+        FlavorInventory.Reservation released = releasesStock(previousStatus, order.getStatus())
+            ? inventory.reservationOf(order.getItems())
+            : FlavorInventory.Reservation.NONE;
+        OrderStatisticsTracker.Change statistics = statisticsTracker.transitioned(previousStatus, order.getStatus(), 1);
+        afterCommit(() -> {
+            statisticsTracker.apply(statistics);
+            revenueRollup.apply(revenue);
+            orderMetrics.recordTransition(previousStatus, order.getStatus(), startedNanos);
+            inventory.release(released);
+            responseCache.invalidate(order.getId());
+            recentOrderWindow.replace(order);
+            eventBroadcaster.publish(new OrderStatusEvent(order.getId(), previousStatus, order.getStatus()));
+        }, () -> {
+            statisticsTracker.discard(statistics);
+            revenueRollup.discard(revenue);
+        });
+    }
+    
+    /**
+     * Whether a transition gives an order's stock back: on cancellation, or on a refund of an order that was not cancelled
+     */
+    private static boolean releasesStock(OrderStatus from, OrderStatus to) {
+        return (to == OrderStatus.CANCELLED || to == OrderStatus.REFUNDED) && from != OrderStatus.CANCELLED;
+    }
+    
+    /**
+     * Stock given back by orders moving from their previous statuses, with their items read in one query
+     */
+    private FlavorInventory.Reservation releasedStock(Map<Long, OrderStatus> previousStatuses, OrderStatus toStatus) {
+        if (!inventory.isTracking()) {
+            return FlavorInventory.Reservation.NONE;
+        }
+        List<Long> releasing = previousStatuses.entrySet().stream()
+            .filter(entry -> releasesStock(entry.getValue(), toStatus))
+            .map(Map.Entry::getKey)
+            .toList();
+        if (releasing.isEmpty()) {
+            return FlavorInventory.Reservation.NONE;
+        }
+        List<OrderItem> items = orderRepository.findReservedItemLinesByIdIn(releasing).stream()
+            .map(row -> {
+                OrderItem item = new OrderItem((String) row[0], (String) row[1], (Integer) row[2], null);
+                item.setStockReserved(true);
+                return item;
+            })
+            .toList();
+        return inventory.reservationOf(items);
+    }
+    
+    /**
+     * Whether archived orders, all in a terminal status, could make this transition
+     */
+    private static boolean archivedOrdersCanMove(OrderStatus fromStatus, OrderStatus toStatus) {
+        for (OrderStatus status : OrderStatus.values()) {
+            if (status.isTerminal() && (fromStatus == null || fromStatus == status) && status.canTransitionTo(toStatus)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Move those of the given orders that are archived back to the live table, so they can change status
+     */
+    private boolean restoreArchived(Collection<Long> ids) {
+        List<Object[]> restored = orderArchive.restore(ids);
+        if (restored.isEmpty()) {
+            return false;
+        }
+        afterCommit(() -> restored.forEach(row -> searchIndex.add((Long) row[0], (String) row[1], (String) row[2])));
+        return true;
+    }
+    
+    /**
+     * Run once the surrounding transaction commits, or right away outside a transaction
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    /**
+     * Run once the surrounding transaction commits, or right away outside a transaction;
+     * run onRollback instead if it rolls back
+     */
+    private static void afterCommit(Runnable action, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+    
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Run if the surrounding transaction rolls back
+     */
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Clamp the requested page size to the configured bounds
+     */
+    private int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+    
+    private static List<Long> boxed(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+    
+    /**
+     * Load orders by id in a single query, in the order of the given ids, looking up
+     * the ones not found in the archive and skipping the ones in neither
+     */
+    private List<Order> findAllInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, Order> byId = new HashMap<>();
+        orderRepository.findAllById(boxed(ids)).forEach(order -> byId.put(order.getId(), order));
+        if (byId.size() < ids.length) {
+            List<Long> missing = Arrays.stream(ids).filter(id -> !byId.containsKey(id)).boxed().toList();
+            orderArchive.findAllById(missing).forEach(order -> byId.put(order.getId(), order));
+        }
+        List<Order> orders = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Order order = byId.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+    
+    /**
+     * Merge a page of live rows with a page of archived rows, both in the given order, keeping the first limit
+     */
+    private static <T> List<T> mergePages(List<T> live, List<T> archived, Comparator<T> order, int limit) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<T> merged = new ArrayList<>(live.size() + archived.size());
+        merged.addAll(live);
+        merged.addAll(archived);
+        merged.sort(order);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+    
+    /**
+     * Build a page from a query that fetched one row beyond the page size
+     * 
+     * The items are loaded here, inside the caller's transaction, so they come from the
+     * same database as the orders: loaded during serialization they would take a new
+     * connection from the primary after a read-only transaction on the replica ended.
+     */
+    private OrderPage toPage(List<Order> rows, int size) {
+        boolean more = rows.size() > size;
+        List<Order> orders = more ? new ArrayList<>(rows.subList(0, size)) : rows;
+        orders.forEach(order -> Hibernate.initialize(order.getItems()));
+        return new OrderPage(orders, more ? OrderCursor.after(orders.get(size - 1)).encode() : null);
+    }
+    
     /**
      * DANGEROUS METHOD - Exposes sensitive configuration
      * This method should never exist in production code!
@@ -168,26 +875,145 @@ public class OrderService {
      */
     public static class OrderStatistics {
         private final Long totalOrders;
-        private final Long pendingOrders;
-        private final Long confirmedOrders;
-        private final Long deliveredOrders;
-        private final Long cancelledOrders;
+        private final Map<OrderStatus, Long> ordersByStatus;
         
-        public OrderStatistics(Long totalOrders, Long pendingOrders, Long confirmedOrders,
-                             Long deliveredOrders, Long cancelledOrders) {
-            this.totalOrders = totalOrders;
-            this.pendingOrders = pendingOrders;
-            this.confirmedOrders = confirmedOrders;
-            this.deliveredOrders = deliveredOrders;
-            this.cancelledOrders = cancelledOrders;
+        public OrderStatistics(Map<OrderStatus, Long> ordersByStatus) {
+            this.ordersByStatus = ordersByStatus;
+            this.totalOrders = ordersByStatus.values().stream().mapToLong(Long::longValue).sum();
         }
         
         // Getters
         public Long getTotalOrders() { return totalOrders; }
-        public Long getPendingOrders() { return pendingOrders; }
-        public Long getConfirmedOrders() { return confirmedOrders; }
-        public Long getDeliveredOrders() { return deliveredOrders; }
-        public Long getCancelledOrders() { return cancelledOrders; }
+        public Map<OrderStatus, Long> getOrdersByStatus() { return ordersByStatus; }
+        public Long getPendingOrders() { return ordersByStatus.get(OrderStatus.PENDING); }
+        public Long getConfirmedOrders() { return ordersByStatus.get(OrderStatus.CONFIRMED); }
+        public Long getPreparingOrders() { return ordersByStatus.get(OrderStatus.PREPARING); }
+        public Long getReadyOrders() { return ordersByStatus.get(OrderStatus.READY); }
+        public Long getOutForDeliveryOrders() { return ordersByStatus.get(OrderStatus.OUT_FOR_DELIVERY); }
+        public Long getDeliveredOrders() { return ordersByStatus.get(OrderStatus.DELIVERED); }
+        public Long getCancelledOrders() { return ordersByStatus.get(OrderStatus.CANCELLED); }
+        public Long getRefundedOrders() { return ordersByStatus.get(OrderStatus.REFUNDED); }
+    }
+    
+    /**
+     * Inner class for a keyset page of orders
+     */
+    public static class OrderPage {
+        private final List<Order> orders;
+        private final String nextCursor;
+        
+        public OrderPage(List<Order> orders, String nextCursor) {
+            this.orders = orders;
+            this.nextCursor = nextCursor;
+        }
+        
+        // Getters
+        public List<Order> getOrders() { return orders; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean hasNext() { return nextCursor != null; }
+    }
+    
+    /**
+     * Inner class for one keyset page of order summaries
+     */
+    public static class SummaryPage {
+        private final List<OrderSummary> summaries;
+        private final String nextCursor;
+        
+        public SummaryPage(List<OrderSummary> summaries, String nextCursor) {
+            this.summaries = summaries;
+            this.nextCursor = nextCursor;
+        }
+        
+        // Getters
+        public List<OrderSummary> getSummaries() { return summaries; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean hasNext() { return nextCursor != null; }
+    }
+    
+    /**
+     * Inner class for the validators of conditional requests on one order
+     */
+    public static class OrderVersion {
+        private final Long version;
+        private final LocalDateTime lastModified;
+        
+        public OrderVersion(Long version, LocalDateTime lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+        
+        // Getters
+        public Long getVersion() { return version; }
+        public LocalDateTime getLastModified() { return lastModified; }
+    }
+    
+    /**
+     * Inner class for the orders moved by a bulk status transition
+     */
+    public static class BulkTransitionResult {
+        private final int count;
+        private final List<Long> orderIds;
+        
+        public BulkTransitionResult(List<Long> orderIds) {
+            this.orderIds = orderIds;
+            this.count = orderIds.size();
+        }
+        
+        // Getters
+        public int getCount() { return count; }
+        public List<Long> getOrderIds() { return orderIds; }
+    }
+    
+    /**
+     * Inner class for the outcome of a batch of orders
+     */
+    public static class BatchResult {
+        private final int created;
+        private final int rejected;
+        private final List<BatchItemResult> results;
+        
+        public BatchResult(List<BatchItemResult> results) {
+            this.results = results;
+            this.created = (int) results.stream().filter(BatchItemResult::isCreated).count();
+            this.rejected = results.size() - created;
+        }
+        
+        // Getters
+        public int getCreated() { return created; }
+        public int getRejected() { return rejected; }
+        public List<BatchItemResult> getResults() { return results; }
+    }
+    
+    /**
+     * Inner class for the outcome of one order in a batch
+     */
+    public static class BatchItemResult {
+        private final int index;
+        private final Long orderId;
+        private final boolean created;
+        private final String error;
+        
+        private BatchItemResult(int index, Long orderId, boolean created, String error) {
+            this.index = index;
+            this.orderId = orderId;
+            this.created = created;
+            this.error = error;
+        }
+        
+        static BatchItemResult created(int index, Long orderId) {
+            return new BatchItemResult(index, orderId, true, null);
+        }
+        
+        static BatchItemResult rejected(int index, String error) {
+            return new BatchItemResult(index, null, false, error);
+        }
+        
+        // Getters
+        public int getIndex() { return index; }
+        public Long getOrderId() { return orderId; }
+        public boolean isCreated() { return created; }
+        public String getError() { return error; }
     }
     
     /**
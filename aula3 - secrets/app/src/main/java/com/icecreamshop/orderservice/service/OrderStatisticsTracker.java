@@ -0,0 +1,177 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order Statistics Tracker - In-memory order counts per status
+ * 
+ * Seeded from a single GROUP BY query over live and archived orders once the
+ * application is ready, then kept current by OrderService on every create and
+ * status transition. Reads never touch the database; a periodic reconciliation
+ * corrects any drift.
+ * 
+ * A change is begun inside the transaction that makes it and applied after commit.
+ * Reconciliation only corrects a status when no change to it committed while the
+ * count query ran, and adjusts the counter by the difference instead of overwriting
+ * it, so a change applied concurrently is neither lost nor counted twice. A status
+ * that was busy during the query keeps its count until the next pass.
+ */
+@Component
+public class OrderStatisticsTracker {
+    
+    private static final Logger log = LoggerFactory.getLogger(OrderStatisticsTracker.class);
+    
+    private static final int SEED_ATTEMPTS = 10;
+    
+    @Autowired
+    private OrderArchiveStore orderArchive;
+    
+    private final Map<OrderStatus, LongAdder> counts = new EnumMap<>(OrderStatus.class);
+    private final InFlightChanges<OrderStatus> changes = new InFlightChanges<>();
+    
+    public OrderStatisticsTracker() {
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, new LongAdder());
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        for (int attempt = 1; !reconcile(); attempt++) {
+            if (attempt == SEED_ATTEMPTS) {
+                log.warn("Order statistics still changing after {} attempts, left to the next reconciliation",
+                         SEED_ATTEMPTS);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Re-read the per-status counts and adjust the counters by the difference,
+     * returns false if a status was skipped because it changed meanwhile
+     */
+    @Scheduled(fixedDelayString = "${icecream.statistics.reconcile-interval-ms:60000}",
+               initialDelayString = "${icecream.statistics.reconcile-interval-ms:60000}")
+    public boolean reconcile() {
+        Map<OrderStatus, Long> applied = changes.appliedCounts();
+        Map<OrderStatus, Long> actual = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            actual.put(status, 0L);
+        }
+        List<Object[]> rows = orderArchive.countGroupedByStatus();
+        for (Object[] row : rows) {
+            actual.put((OrderStatus) row[0], (Long) row[1]);
+        }
+        boolean complete = true;
+        for (OrderStatus status : OrderStatus.values()) {
+            LongAdder counter = counts.get(status);
+            // Read the counter before checking, so a change applied in between is caught by the check
+            long held = counter.sum();
+            if (!changes.unchangedSince(status, applied)) {
+                complete = false;
+                continue;
+            }
+            long drift = actual.get(status) - held;
+            if (drift != 0) {
+                counter.add(drift);
+            }
+        }
+        return complete;
+    }
+    
+    /**
+     * Pending change for a new order, call it before the order can commit
+     */
+    public Change created(OrderStatus status) {
+        return begin(new Change(null, status, 1));
+    }
+    
+    /**
+     * Pending change for orders moving between statuses, call it inside the transaction that moves them
+     */
+    public Change transitioned(OrderStatus from, OrderStatus to, long orders) {
+        if (from == to || orders == 0) {
+            return Change.NONE;
+        }
+        return begin(new Change(from, to, orders));
+    }
+    
+    /**
+     * Apply a committed change to the counters
+     */
+    public void apply(Change change) {
+        if (change.to == null) {
+            return;
+        }
+        if (change.from != null) {
+            counts.get(change.from).add(-change.orders);
+        }
+        counts.get(change.to).add(change.orders);
+        if (change.from != null) {
+            changes.applied(change.from);
+        }
+        changes.applied(change.to);
+    }
+    
+    /**
+     * Drop a change whose transaction rolled back
+     */
+    public void discard(Change change) {
+        if (change.to == null) {
+            return;
+        }
+        if (change.from != null) {
+            changes.discarded(change.from);
+        }
+        changes.discarded(change.to);
+    }
+    
+    private Change begin(Change change) {
+        if (change.from != null) {
+            changes.begin(change.from);
+        }
+        changes.begin(change.to);
+        return change;
+    }
+    
+    /**
+     * Current count per status
+     */
+    public Map<OrderStatus, Long> snapshot() {
+        Map<OrderStatus, Long> snapshot = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            snapshot.put(status, Math.max(0L, counts.get(status).sum()));
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Pending change to the counters, begun inside a transaction and applied once it commits
+     */
+    public static final class Change {
+        static final Change NONE = new Change(null, null, 0);
+    
+        private final OrderStatus from;
+        private final OrderStatus to;
+        private final long orders;
+    
+        private Change(OrderStatus from, OrderStatus to, long orders) {
+            this.from = from;
+            this.to = to;
+            this.orders = orders;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+
+/**
+ * Thrown when a status transition is not allowed from the order's current status,
+ * or when the order changed between reading and updating it
+ */
+public class OrderStatusConflictException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long orderId;
+    private final OrderStatus currentStatus;
+    private final Long currentVersion;
+    private final OrderStatus requestedStatus;
+    
+    public OrderStatusConflictException(Long orderId, OrderStatus currentStatus, Long currentVersion,
+                                        OrderStatus requestedStatus, String message) {
+        super(message);
+        this.orderId = orderId;
+        this.currentStatus = currentStatus;
+        this.currentVersion = currentVersion;
+        this.requestedStatus = requestedStatus;
+    }
+    
+    public Long getOrderId() { return orderId; }
+    public OrderStatus getCurrentStatus() { return currentStatus; }
+    public Long getCurrentVersion() { return currentVersion; }
+    public OrderStatus getRequestedStatus() { return requestedStatus; }
+}
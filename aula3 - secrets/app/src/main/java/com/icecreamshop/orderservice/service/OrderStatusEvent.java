@@ -0,0 +1,32 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Order Status Event - A committed status change pushed to event stream subscribers
+ * 
+ * previousStatus is null for a newly created order and for the snapshot sent when
+ * a client subscribes to a single order.
+ */
+public class OrderStatusEvent {
+    
+    private final Long orderId;
+    private final OrderStatus previousStatus;
+    private final OrderStatus status;
+    private final LocalDateTime occurredAt;
+    
+    public OrderStatusEvent(Long orderId, OrderStatus previousStatus, OrderStatus status) {
+        this.orderId = orderId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.occurredAt = LocalDateTime.now();
+    }
+    
+    // Getters
+    public Long getOrderId() { return orderId; }
+    public OrderStatus getPreviousStatus() { return previousStatus; }
+    public OrderStatus getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
@@ -0,0 +1,27 @@
+package com.icecreamshop.orderservice.service;
+
+/**
+ * Thrown when an order asks for more of a flavor and size than is in stock
+ */
+public class OutOfStockException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final String flavor;
+    private final String size;
+    private final long requested;
+    private final long available;
+    
+    public OutOfStockException(String flavor, String size, long requested, long available) {
+        super("Out of stock: " + requested + " x " + flavor + " (" + size + ") requested, " + available + " available");
+        this.flavor = flavor;
+        this.size = size;
+        this.requested = requested;
+        this.available = available;
+    }
+    
+    public String getFlavor() { return flavor; }
+    public String getSize() { return size; }
+    public long getRequested() { return requested; }
+    public long getAvailable() { return available; }
+}
@@ -0,0 +1,228 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Recent Order Window - The last 24 hours of orders held in memory, newest first
+ * 
+ * Orders live in a ring of per-minute buckets indexed by creation minute. A bucket
+ * is replaced as soon as its slot is needed for a minute 24 hours later, so old
+ * orders expire without a sweep. Each bucket keeps its orders sorted by
+ * (createdAt, id) descending, the same order as the keyset pages, so a page is
+ * read by walking buckets back from the cursor's minute.
+ * 
+ * Loaded from the database once the application is ready; OrderService then adds
+ * every created order and applies every committed status change. Until loaded,
+ * callers fall back to the database.
+ */
+@Component
+public class RecentOrderWindow {
+    
+    private static final int MINUTES = 24 * 60;
+    // One extra slot for the partly expired minute at the start of the window
+    private static final int SLOTS = MINUTES + 1;
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
+    private static final Comparator<OrderCursor> NEWEST_FIRST = Comparator
+        .comparing(OrderCursor::getCreatedAt)
+        .thenComparing(OrderCursor::getId)
+        .reversed();
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(SLOTS);
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile boolean ready;
+    
+    public RecentOrderWindow(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    /**
+     * Load the last 24 hours of orders, oldest first, in short read-only chunks
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        OrderCursor cursor = new OrderCursor(windowStart(), 0L);
+        while (true) {
+            OrderCursor after = cursor;
+            List<Order> chunk = readOnlyTransaction.execute(tx -> {
+                List<Order> orders = orderRepository.findExportChunk(
+                    LATEST, after.getCreatedAt(), after.getId(), Limit.of(REBUILD_CHUNK_SIZE));
+                orders.forEach(order -> Hibernate.initialize(order.getItems()));
+                return orders;
+            });
+            // Orders added or changed since the load started are already newer than the database read
+            chunk.forEach(order -> put(order, true));
+            if (chunk.size() < REBUILD_CHUNK_SIZE) {
+                break;
+            }
+            cursor = OrderCursor.after(chunk.get(chunk.size() - 1));
+        }
+        ready = true;
+    }
+    
+    /**
+     * Whether the window covers orders created at or after the given time
+     */
+    public boolean covers(LocalDateTime since) {
+        return ready && !since.isBefore(windowStart());
+    }
+    
+    public void add(Order order) {
+        put(order, false);
+    }
+    
+    /**
+     * Replace an order with its state after a committed change, unless a newer version is already held
+     */
+    public void replace(Order order) {
+        Bucket bucket = bucketFor(order.getCreatedAt(), false);
+        if (bucket != null) {
+            bucket.orders.computeIfPresent(OrderCursor.after(order),
+                (key, held) -> isNewer(order, held) ? order : held);
+        }
+    }
+    
+    /**
+     * Apply a bulk status change to an order known only by id and creation time
+     */
+    public void transition(Long orderId, LocalDateTime createdAt, OrderStatus status, LocalDateTime updatedAt) {
+        Bucket bucket = bucketFor(createdAt, false);
+        if (bucket != null) {
+            bucket.orders.computeIfPresent(new OrderCursor(createdAt, orderId),
+                (key, held) -> held.getStatus() == status ? held : withStatus(held, status, updatedAt));
+        }
+    }
+    
+    /**
+     * Up to limit orders created at or after since, strictly after the cursor, newest first
+     */
+    public List<Order> page(LocalDateTime since, OrderCursor after, int limit) {
+        List<Order> page = new ArrayList<>(limit);
+        LocalDateTime now = LocalDateTime.now();
+        long newestMinute = minuteOf(after.getCreatedAt().isBefore(now) ? after.getCreatedAt() : now);
+        long oldestMinute = minuteOf(since);
+        for (long minute = newestMinute; minute >= oldestMinute && page.size() < limit; minute--) {
+            Bucket bucket = buckets.get(slot(minute));
+            if (bucket == null || bucket.minute != minute) {
+                continue;
+            }
+            for (Order order : bucket.orders.tailMap(after, false).values()) {
+                if (order.getCreatedAt().isBefore(since) || page.size() == limit) {
+                    break;
+                }
+                page.add(order);
+            }
+        }
+        return page;
+    }
+    
+    private void put(Order order, boolean ifAbsent) {
+        Bucket bucket = bucketFor(order.getCreatedAt(), true);
+        if (bucket == null) {
+            return;
+        }
+        if (ifAbsent) {
+            bucket.orders.putIfAbsent(OrderCursor.after(order), order);
+        } else {
+            bucket.orders.put(OrderCursor.after(order), order);
+        }
+    }
+    
+    /**
+     * Bucket holding the given creation minute, replacing an expired one when create is set
+     */
+    private Bucket bucketFor(LocalDateTime createdAt, boolean create) {
+        long minute = minuteOf(createdAt);
+        if (minute < minuteOf(LocalDateTime.now()) - MINUTES) {
+            return null;
+        }
+        int slot = slot(minute);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.minute == minute) {
+                return bucket;
+            }
+            if (!create || (bucket != null && bucket.minute > minute)) {
+                return null;
+            }
+            Bucket fresh = new Bucket(minute);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+    
+    private static boolean isNewer(Order candidate, Order held) {
+        return held.getVersion() == null || candidate.getVersion() == null
+            || candidate.getVersion() >= held.getVersion();
+    }
+    
+    private static Order withStatus(Order held, OrderStatus status, LocalDateTime updatedAt) {
+        Order copy = new Order();
+        copy.setId(held.getId());
+        copy.setCustomerName(held.getCustomerName());
+        copy.setCustomerEmail(held.getCustomerEmail());
+        copy.setCustomerPhone(held.getCustomerPhone());
+        copy.setDeliveryAddress(held.getDeliveryAddress());
+        copy.setItems(held.getItems());
+        copy.setTotalAmount(held.getTotalAmount());
+        copy.setStatus(status);
+        copy.setPaymentMethod(held.getPaymentMethod());
+        copy.setPaymentTransactionId(held.getPaymentTransactionId());
+        copy.setSpecialInstructions(held.getSpecialInstructions());
+        copy.setEstimatedDeliveryTime(held.getEstimatedDeliveryTime());
+        copy.setCreatedAt(held.getCreatedAt());
+        copy.setUpdatedAt(updatedAt);
+        copy.setVersion(held.getVersion() == null ? null : held.getVersion() + 1);
+        return copy;
+    }
+    
+    private static LocalDateTime windowStart() {
+        return LocalDateTime.now().minusMinutes(MINUTES).truncatedTo(ChronoUnit.MINUTES);
+    }
+    
+    private static long minuteOf(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MINUTES).toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+    
+    private static int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) SLOTS);
+    }
+    
+    /**
+     * Orders created within one minute, newest first
+     */
+    private static class Bucket {
+        private final long minute;
+        private final ConcurrentNavigableMap<OrderCursor, Order> orders = new ConcurrentSkipListMap<>(NEWEST_FIRST);
+    
+        Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,635 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.repository.OrderArchiveStore;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Revenue Rollup - Item quantities and amounts per hour, flavor, size and payment method
+ * 
+ * Every order item is counted in the cell of its order's creation hour under one of
+ * four outcomes: open, delivered, cancelled or refunded. A new order adds its items as
+ * open; moving to DELIVERED, CANCELLED or REFUNDED moves them to that outcome within
+ * the same cells. Revenue is the delivered amount, so a refund takes it back out of the
+ * hour the order was placed in.
+ * 
+ * Cells are kept per hour for the configured retention and per day for all time, so a
+ * report adds up cells and never reads order_items. Built from one grouped query over
+ * live and archived orders once the application is ready; the most recent days are
+ * periodically re-read to correct any drift.
+ * 
+ * A delta is begun inside the transaction that makes it and applied after commit.
+ * Reconciliation only corrects a day (and its hours) when no delta for it committed
+ * while the query ran, and adjusts the cells by the difference instead of overwriting
+ * them, so a delta applied concurrently is neither lost nor counted twice. A day that
+ * was busy during the query keeps its cells until the next pass; the startup build
+ * re-reads busy days until they settle.
+ */
+@Component
+public class RevenueRollup {
+    
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int HOURS_PER_DAY = 24;
+    private static final int REBUILD_ATTEMPTS = 10;
+    
+    private static final Logger log = LoggerFactory.getLogger(RevenueRollup.class);
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderArchiveStore orderArchive;
+    
+    @Value("${icecream.analytics.hourly-retention-days:31}")
+    private int hourlyRetentionDays;
+    
+    @Value("${icecream.analytics.reconcile-days:2}")
+    private int reconcileDays;
+    
+    private final ConcurrentSkipListMap<Long, Map<Dimension, Cell>> hours = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, Map<Dimension, Cell>> days = new ConcurrentSkipListMap<>();
+    private final InFlightChanges<Long> changes = new InFlightChanges<>();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDateTime since = EPOCH;
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            List<Long> busyDays = reconcile(since);
+            if (busyDays.isEmpty()) {
+                return;
+            }
+            since = dayStart(busyDays.get(0));
+        }
+        log.warn("Revenue rollups still changing after {} attempts, left to the next reconciliation",
+                 REBUILD_ATTEMPTS);
+    }
+    
+    /**
+     * Re-read the most recent days and drop hourly cells past their retention
+     */
+    @Scheduled(fixedDelayString = "${icecream.analytics.reconcile-interval-ms:300000}",
+               initialDelayString = "${icecream.analytics.reconcile-interval-ms:300000}")
+    public void reconcileRecent() {
+        hours.headMap(oldestHour()).clear();
+        reconcile(LocalDate.now().minusDays(Math.max(reconcileDays - 1, 0)).atStartOfDay());
+    }
+    
+    /**
+     * Items of a new order, counted as open; call it before the order can commit
+     */
+    public Delta created(Order order) {
+        Delta delta = new Delta();
+        addItems(delta, order, null, Outcome.of(order.getStatus()));
+        return begin(delta);
+    }
+    
+    /**
+     * Items of an order that moved from the given status, empty unless its outcome changed
+     * 
+     * Reads the order's items, so call it inside the transaction that changed the order.
+     */
+    public Delta transitioned(Order order, OrderStatus previousStatus) {
+        Delta delta = new Delta();
+        Outcome from = Outcome.of(previousStatus);
+        Outcome to = Outcome.of(order.getStatus());
+        if (from != to) {
+            addItems(delta, order, from, to);
+        }
+        return begin(delta);
+    }
+    
+    /**
+     * Items of orders moved to the given status from their previous statuses, read in one query
+     */
+    public Delta transitioned(Map<Long, OrderStatus> previousStatuses, OrderStatus status) {
+        Delta delta = new Delta();
+        Outcome to = Outcome.of(status);
+        List<Long> moved = previousStatuses.entrySet().stream()
+            .filter(entry -> Outcome.of(entry.getValue()) != to)
+            .map(Map.Entry::getKey)
+            .toList();
+        if (moved.isEmpty()) {
+            return delta;
+        }
+        for (Object[] row : orderRepository.findItemLinesByIdIn(moved)) {
+            delta.add(epochHour((LocalDateTime) row[1]),
+                new Dimension((String) row[3], (String) row[4], (PaymentMethod) row[2]),
+                Outcome.of(previousStatuses.get((Long) row[0])), to,
+                row[5] == null ? 0 : (Integer) row[5], (BigDecimal) row[6]);
+        }
+        return begin(delta);
+    }
+    
+    /**
+     * Apply a committed change to the day cells, and to the hour cells while still retained
+     */
+    public void apply(Delta delta) {
+        long oldestHour = oldestHour();
+        for (Line line : delta.lines) {
+            cell(days, Math.floorDiv(line.hour, HOURS_PER_DAY), line.dimension).move(line.from, line.to, line.values);
+            if (line.hour >= oldestHour) {
+                cell(hours, line.hour, line.dimension).move(line.from, line.to, line.values);
+            }
+        }
+        delta.days.forEach(changes::applied);
+    }
+    
+    /**
+     * Drop a change whose transaction rolled back
+     */
+    public void discard(Delta delta) {
+        delta.days.forEach(changes::discarded);
+    }
+    
+    private Delta begin(Delta delta) {
+        for (Line line : delta.lines) {
+            delta.days.add(Math.floorDiv(line.hour, HOURS_PER_DAY));
+        }
+        delta.days.forEach(changes::begin);
+        return delta;
+    }
+    
+    /**
+     * Quantities and amounts of orders placed in [from, to), per hour, day or in total,
+     * optionally broken down by flavor, size and payment method
+     * 
+     * Whole hours (or days) overlapping the range are counted; hourly figures are only
+     * available within the hourly retention.
+     */
+    public RevenueReport report(LocalDateTime from, LocalDateTime to, Granularity granularity,
+                                Set<Breakdown> breakdown) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Range start must be before its end");
+        }
+        ConcurrentNavigableMap<Long, Map<Dimension, Cell>> cells;
+        if (granularity == Granularity.HOUR) {
+            long fromHour = epochHour(from);
+            if (fromHour < oldestHour()) {
+                throw new IllegalArgumentException(
+                    "Hourly revenue is only kept for the last " + hourlyRetentionDays + " days");
+            }
+            cells = hours.subMap(fromHour, true, ceilDiv(epochSecond(to), SECONDS_PER_HOUR), false);
+        } else {
+            cells = days.subMap(Math.floorDiv(epochHour(from), HOURS_PER_DAY), true,
+                ceilDiv(epochSecond(to), SECONDS_PER_HOUR * HOURS_PER_DAY), false);
+        }
+    
+        Map<RowKey, long[]> totals = new HashMap<>();
+        cells.forEach((bucket, bucketCells) -> bucketCells.forEach((dimension, cell) -> {
+            long[] values = cell.snapshot();
+            if (Arrays.stream(values).allMatch(value -> value == 0)) {
+                return;
+            }
+            Long rowBucket = granularity == Granularity.TOTAL ? null
+                : granularity == Granularity.HOUR ? bucket : bucket * HOURS_PER_DAY;
+            long[] sum = totals.computeIfAbsent(new RowKey(rowBucket, dimension.project(breakdown)),
+                key -> new long[values.length]);
+            for (int i = 0; i < values.length; i++) {
+                sum[i] += values[i];
+            }
+        }));
+    
+        List<RevenueRow> rows = new ArrayList<>(totals.size());
+        totals.forEach((key, values) -> rows.add(new RevenueRow(key, values)));
+        rows.sort(Comparator.comparing(RevenueRow::getBucket, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(RevenueRow::getRevenue, Comparator.reverseOrder())
+            .thenComparing(RevenueRow::getGrossAmount, Comparator.reverseOrder()));
+        return new RevenueReport(from, to, granularity, rows);
+    }
+    
+    /**
+     * Recompute every cell for orders placed since the start of the given day and correct the
+     * held values, returns the days skipped because a delta for them committed meanwhile
+     */
+    private List<Long> reconcile(LocalDateTime since) {
+        long oldestHour = oldestHour();
+        long sinceHour = epochHour(since);
+        long sinceDay = Math.floorDiv(sinceHour, HOURS_PER_DAY);
+        Map<Long, Long> applied = changes.appliedCounts();
+        Map<Long, Map<Dimension, long[]>> actualHours = new HashMap<>();
+        Map<Long, Map<Dimension, long[]>> actualDays = new HashMap<>();
+        for (Object[] row : orderArchive.sumItemsByHourSince(since)) {
+            long hour = epochHour((LocalDateTime) row[0]);
+            Dimension dimension = new Dimension((String) row[3], (String) row[4], (PaymentMethod) row[1]);
+            Outcome outcome = Outcome.of((OrderStatus) row[2]);
+            long quantity = (Long) row[5];
+            long cents = toCents((BigDecimal) row[6]);
+    
+            long[] day = actualDays.computeIfAbsent(Math.floorDiv(hour, HOURS_PER_DAY), key -> new HashMap<>())
+                .computeIfAbsent(dimension, key -> new long[OUTCOMES.length * 2]);
+            day[outcome.ordinal()] += quantity;
+            day[OUTCOMES.length + outcome.ordinal()] += cents;
+            if (hour >= oldestHour) {
+                long[] hourValues = actualHours.computeIfAbsent(hour, key -> new HashMap<>())
+                    .computeIfAbsent(dimension, key -> new long[OUTCOMES.length * 2]);
+                hourValues[outcome.ordinal()] += quantity;
+                hourValues[OUTCOMES.length + outcome.ordinal()] += cents;
+            }
+        }
+    
+        Set<Long> dayBuckets = new TreeSet<>(days.tailMap(sinceDay).keySet());
+        dayBuckets.addAll(actualDays.keySet());
+        List<Long> busyDays = new ArrayList<>();
+        for (long day : dayBuckets) {
+            long fromHour = Math.max(day * HOURS_PER_DAY, Math.max(sinceHour, oldestHour));
+            long toHour = (day + 1) * HOURS_PER_DAY;
+            // Read the cells before checking, so a delta applied in between is caught by the check
+            Map<Long, Map<Dimension, long[]>> heldDay = snapshot(days, day, day + 1);
+            Map<Long, Map<Dimension, long[]>> heldHours = snapshot(hours, fromHour, toHour);
+            if (!changes.unchangedSince(day, applied)) {
+                busyDays.add(day);
+                continue;
+            }
+            correct(days, heldDay, actualDays, day, day + 1);
+            correct(hours, heldHours, actualHours, fromHour, toHour);
+        }
+        return busyDays;
+    }
+    
+    /**
+     * Values of the cells in buckets [from, to)
+     */
+    private static Map<Long, Map<Dimension, long[]>> snapshot(ConcurrentSkipListMap<Long, Map<Dimension, Cell>> cells,
+                                                              long from, long to) {
+        Map<Long, Map<Dimension, long[]>> held = new HashMap<>();
+        if (from < to) {
+            cells.subMap(from, to).forEach((bucket, bucketCells) -> bucketCells.forEach(
+                (dimension, cell) -> held.computeIfAbsent(bucket, key -> new HashMap<>()).put(dimension, cell.snapshot())));
+        }
+        return held;
+    }
+    
+    /**
+     * Add the difference between the actual and the held values to every cell in buckets [from, to),
+     * actual values being zero when absent
+     */
+    private static void correct(ConcurrentSkipListMap<Long, Map<Dimension, Cell>> cells,
+                                Map<Long, Map<Dimension, long[]>> held, Map<Long, Map<Dimension, long[]>> actual,
+                                long from, long to) {
+        for (long bucket = from; bucket < to; bucket++) {
+            Map<Dimension, long[]> heldCells = held.getOrDefault(bucket, Map.of());
+            Map<Dimension, long[]> actualCells = actual.getOrDefault(bucket, Map.of());
+            Set<Dimension> dimensions = new HashSet<>(heldCells.keySet());
+            dimensions.addAll(actualCells.keySet());
+            for (Dimension dimension : dimensions) {
+                long[] heldValues = heldCells.get(dimension);
+                long[] actualValues = actualCells.get(dimension);
+                long[] difference = new long[OUTCOMES.length * 2];
+                boolean differs = false;
+                for (int i = 0; i < difference.length; i++) {
+                    difference[i] = (actualValues == null ? 0 : actualValues[i]) - (heldValues == null ? 0 : heldValues[i]);
+                    differs |= difference[i] != 0;
+                }
+                if (differs) {
+                    cell(cells, bucket, dimension).add(difference);
+                }
+            }
+        }
+    }
+    
+    private static void addItems(Delta delta, Order order, Outcome from, Outcome to) {
+        if (order.getItems() == null) {
+            return;
+        }
+        long hour = epochHour(order.getCreatedAt());
+        for (OrderItem item : order.getItems()) {
+            delta.add(hour, new Dimension(item.getFlavor(), item.getSize(), order.getPaymentMethod()),
+                from, to, item.getQuantity() == null ? 0 : item.getQuantity(), item.getUnitPrice());
+        }
+    }
+    
+    private static Cell cell(ConcurrentSkipListMap<Long, Map<Dimension, Cell>> cells, long bucket,
+                             Dimension dimension) {
+        return cells.computeIfAbsent(bucket, key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(dimension, key -> new Cell());
+    }
+    
+    private long oldestHour() {
+        return epochHour(LocalDate.now().minusDays(hourlyRetentionDays).atStartOfDay());
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    private static long epochHour(LocalDateTime time) {
+        return Math.floorDiv(epochSecond(time), SECONDS_PER_HOUR);
+    }
+    
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+    
+    private static LocalDateTime hourStart(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+    }
+    
+    private static LocalDateTime dayStart(long day) {
+        return hourStart(day * HOURS_PER_DAY);
+    }
+    
+    /**
+     * Where an order's items are counted: open until delivered, cancelled or refunded
+     */
+    public enum Outcome {
+        OPEN, DELIVERED, CANCELLED, REFUNDED;
+    
+        static Outcome of(OrderStatus status) {
+            switch (status) {
+                case DELIVERED:
+                    return DELIVERED;
+                case CANCELLED:
+                    return CANCELLED;
+                case REFUNDED:
+                    return REFUNDED;
+                default:
+                    return OPEN;
+            }
+        }
+    }
+    
+    /**
+     * Report buckets: one row set per hour, per day, or for the whole range
+     */
+    public enum Granularity {
+        HOUR, DAY, TOTAL;
+    
+        public static Granularity parse(String value) {
+            if (value == null || value.isBlank()) {
+                return DAY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown granularity: " + value, e);
+            }
+        }
+    }
+    
+    /**
+     * Dimensions a report may be broken down by
+     */
+    public enum Breakdown {
+        FLAVOR, SIZE, PAYMENT_METHOD;
+    
+        /**
+         * Parse a comma-separated list such as "flavor,paymentMethod", empty for none
+         */
+        public static Set<Breakdown> parse(String value) {
+            Set<Breakdown> breakdown = EnumSet.noneOf(Breakdown.class);
+            if (value == null || value.isBlank()) {
+                return breakdown;
+            }
+            for (String name : value.split(",")) {
+                switch (name.trim().toLowerCase(Locale.ROOT)) {
+                    case "flavor":
+                        breakdown.add(FLAVOR);
+                        break;
+                    case "size":
+                        breakdown.add(SIZE);
+                        break;
+                    case "paymentmethod":
+                    case "payment_method":
+                        breakdown.add(PAYMENT_METHOD);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown breakdown: " + name);
+                }
+            }
+            return breakdown;
+        }
+    }
+    
+    /**
+     * Pending change to the cells, begun inside a transaction and applied once it commits
+     */
+    public static class Delta {
+        private final List<Line> lines = new ArrayList<>();
+        private final Set<Long> days = new HashSet<>();
+    
+        private void add(long hour, Dimension dimension, Outcome from, Outcome to, long quantity,
+                         BigDecimal unitPrice) {
+            long[] values = new long[OUTCOMES.length * 2];
+            values[0] = quantity;
+            values[1] = unitPrice == null ? 0 : toCents(unitPrice) * quantity;
+            lines.add(new Line(hour, dimension, from, to, values));
+        }
+    
+        public boolean isEmpty() {
+            return lines.isEmpty();
+        }
+    }
+    
+    private static class Line {
+        private final long hour;
+        private final Dimension dimension;
+        private final Outcome from;
+        private final Outcome to;
+        // Quantity and amount in cents
+        private final long[] values;
+    
+        Line(long hour, Dimension dimension, Outcome from, Outcome to, long[] values) {
+            this.hour = hour;
+            this.dimension = dimension;
+            this.from = from;
+            this.to = to;
+            this.values = values;
+        }
+    }
+    
+    /**
+     * Flavor, size and payment method of a cell, any of them null when not broken down
+     */
+    private static final class Dimension {
+        private final String flavor;
+        private final String size;
+        private final PaymentMethod paymentMethod;
+    
+        Dimension(String flavor, String size, PaymentMethod paymentMethod) {
+            this.flavor = flavor;
+            this.size = size;
+            this.paymentMethod = paymentMethod;
+        }
+    
+        Dimension project(Set<Breakdown> breakdown) {
+            return new Dimension(
+                breakdown.contains(Breakdown.FLAVOR) ? flavor : null,
+                breakdown.contains(Breakdown.SIZE) ? size : null,
+                breakdown.contains(Breakdown.PAYMENT_METHOD) ? paymentMethod : null);
+        }
+    
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Dimension)) {
+                return false;
+            }
+            Dimension dimension = (Dimension) other;
+            return Objects.equals(flavor, dimension.flavor) && Objects.equals(size, dimension.size)
+                && paymentMethod == dimension.paymentMethod;
+        }
+    
+        @Override
+        public int hashCode() {
+            return Objects.hash(flavor, size, paymentMethod);
+        }
+    }
+    
+    private static final class RowKey {
+        private final Long bucket;
+        private final Dimension dimension;
+    
+        RowKey(Long bucket, Dimension dimension) {
+            this.bucket = bucket;
+            this.dimension = dimension;
+        }
+    
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RowKey)) {
+                return false;
+            }
+            RowKey key = (RowKey) other;
+            return Objects.equals(bucket, key.bucket) && dimension.equals(key.dimension);
+        }
+    
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucket, dimension);
+        }
+    }
+    
+    /**
+     * Quantity then amount in cents for each outcome, guarded by the cell's monitor
+     */
+    private static final class Cell {
+        private final long[] values = new long[OUTCOMES.length * 2];
+    
+        synchronized void move(Outcome from, Outcome to, long[] line) {
+            if (from != null) {
+                values[from.ordinal()] -= line[0];
+                values[OUTCOMES.length + from.ordinal()] -= line[1];
+            }
+            values[to.ordinal()] += line[0];
+            values[OUTCOMES.length + to.ordinal()] += line[1];
+        }
+    
+        synchronized void add(long[] difference) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] += difference[i];
+            }
+        }
+    
+        synchronized long[] snapshot() {
+            return values.clone();
+        }
+    }
+    
+    /**
+     * Inner class for one report row, null dimensions were not broken down
+     */
+    public static class RevenueRow {
+        private final LocalDateTime bucket;
+        private final String flavor;
+        private final String size;
+        private final PaymentMethod paymentMethod;
+        private final long quantity;
+        private final long deliveredQuantity;
+        private final BigDecimal grossAmount;
+        private final BigDecimal revenue;
+        private final BigDecimal openAmount;
+        private final BigDecimal cancelledAmount;
+        private final BigDecimal refundedAmount;
+    
+        RevenueRow(RowKey key, long[] values) {
+            this.bucket = key.bucket == null ? null : hourStart(key.bucket);
+            this.flavor = key.dimension.flavor;
+            this.size = key.dimension.size;
+            this.paymentMethod = key.dimension.paymentMethod;
+            this.quantity = Arrays.stream(values, 0, OUTCOMES.length).sum();
+            this.deliveredQuantity = values[Outcome.DELIVERED.ordinal()];
+            this.grossAmount = BigDecimal.valueOf(Arrays.stream(values, OUTCOMES.length, values.length).sum(), 2);
+            this.revenue = amount(values, Outcome.DELIVERED);
+            this.openAmount = amount(values, Outcome.OPEN);
+            this.cancelledAmount = amount(values, Outcome.CANCELLED);
+            this.refundedAmount = amount(values, Outcome.REFUNDED);
+        }
+    
+        private static BigDecimal amount(long[] values, Outcome outcome) {
+            return BigDecimal.valueOf(values[OUTCOMES.length + outcome.ordinal()], 2);
+        }
+    
+        // Getters
+        public LocalDateTime getBucket() { return bucket; }
+        public String getFlavor() { return flavor; }
+        public String getSize() { return size; }
+        public PaymentMethod getPaymentMethod() { return paymentMethod; }
+        public long getQuantity() { return quantity; }
+        public long getDeliveredQuantity() { return deliveredQuantity; }
+        public BigDecimal getGrossAmount() { return grossAmount; }
+        public BigDecimal getRevenue() { return revenue; }
+        public BigDecimal getOpenAmount() { return openAmount; }
+        public BigDecimal getCancelledAmount() { return cancelledAmount; }
+        public BigDecimal getRefundedAmount() { return refundedAmount; }
+    }
+    
+    /**
+     * Inner class for a revenue report over a range of order creation times
+     */
+    public static class RevenueReport {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final Granularity granularity;
+        private final List<RevenueRow> rows;
+    
+        public RevenueReport(LocalDateTime from, LocalDateTime to, Granularity granularity, List<RevenueRow> rows) {
+            this.from = from;
+            this.to = to;
+            this.granularity = granularity;
+            this.rows = rows;
+        }
+    
+        // Getters
+        public LocalDateTime getFrom() { return from; }
+        public LocalDateTime getTo() { return to; }
+        public Granularity getGranularity() { return granularity; }
+        public List<RevenueRow> getRows() { return rows; }
+    }
+}
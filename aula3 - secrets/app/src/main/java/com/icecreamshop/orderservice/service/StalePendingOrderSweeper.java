@@ -0,0 +1,104 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stale Pending Order Sweeper - Cancels orders left PENDING past the configured timeout
+ * 
+ * Each run reads a chunk of stale ids without locking, then cancels them through
+ * OrderService.transitionOrders: one short transaction that locks only that chunk and
+ * updates it with a single UPDATE, skipping orders that moved on in the meantime.
+ * Runs stop after max-chunks-per-run chunks and pause between chunks, bounding the
+ * write rate; any remaining backlog is picked up by the next run.
+ * 
+ * Metrics: orders.sweeper.swept (cancelled orders) and orders.sweeper.lag (how long the
+ * oldest pending order has been past the timeout, 0 when the sweeper is caught up).
+ */
+@Component
+public class StalePendingOrderSweeper {
+    
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final Counter swept;
+    private final AtomicLong lagMillis = new AtomicLong();
+    
+    @Value("${icecream.sweeper.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${icecream.sweeper.pending-timeout:2h}")
+    private Duration pendingTimeout;
+    
+    @Value("${icecream.sweeper.chunk-size:200}")
+    private int chunkSize;
+    
+    @Value("${icecream.sweeper.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+    
+    @Value("${icecream.sweeper.chunk-pause:100ms}")
+    private Duration chunkPause;
+    
+    @Autowired
+    public StalePendingOrderSweeper(OrderRepository orderRepository, OrderService orderService,
+                                    MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.swept = Counter.builder("orders.sweeper.swept")
+            .description("Stale pending orders cancelled by the sweeper")
+            .register(meterRegistry);
+        TimeGauge.builder("orders.sweeper.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Time the oldest pending order has been past the pending timeout")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Cancel stale pending orders chunk by chunk, returns the number cancelled
+     */
+    @Scheduled(fixedDelayString = "${icecream.sweeper.interval-ms:60000}",
+               initialDelayString = "${icecream.sweeper.interval-ms:60000}")
+    public int sweep() throws InterruptedException {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(pendingTimeout);
+        int cancelled = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            if (chunk > 0 && !chunkPause.isZero()) {
+                Thread.sleep(chunkPause.toMillis());
+            }
+            List<Long> ids = orderRepository.findStalePendingIds(cutoff, Limit.of(chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            int moved = orderService.transitionOrders(ids, OrderStatus.PENDING, OrderStatus.CANCELLED).getCount();
+            swept.increment(moved);
+            cancelled += moved;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        updateLag(cutoff);
+        return cancelled;
+    }
+    
+    private void updateLag(LocalDateTime cutoff) {
+        LocalDateTime oldestPending = orderRepository.findOldestCreatedAtByStatus(OrderStatus.PENDING);
+        long lag = oldestPending == null || !oldestPending.isBefore(cutoff)
+            ? 0 : Duration.between(oldestPending, cutoff).toMillis();
+        lagMillis.set(lag);
+    }
+}
@@ -0,0 +1,32 @@
+-- Baseline schema for ice cream orders, as previously generated by Hibernate
+
+CREATE TABLE ice_cream_orders (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    customer_name           VARCHAR(255)   NOT NULL,
+    customer_email          VARCHAR(255)   NOT NULL,
+    customer_phone          VARCHAR(255),
+    delivery_address        VARCHAR(500)   NOT NULL,
+    total_amount            NUMERIC(10, 2) NOT NULL,
+    status                  VARCHAR(255)   NOT NULL,
+    payment_method          VARCHAR(255),
+    payment_transaction_id  VARCHAR(255),
+    special_instructions    VARCHAR(1000),
+    estimated_delivery_time TIMESTAMP(6),
+    created_at              TIMESTAMP(6)   NOT NULL,
+    updated_at              TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CHECK (status IN ('PENDING', 'CONFIRMED', 'PREPARING', 'READY', 'OUT_FOR_DELIVERY',
+                      'DELIVERED', 'CANCELLED', 'REFUNDED')),
+    CHECK (payment_method IN ('CREDIT_CARD', 'DEBIT_CARD', 'PAYPAL', 'STRIPE', 'CASH_ON_DELIVERY',
+                              'APPLE_PAY', 'GOOGLE_PAY'))
+);
+
+CREATE TABLE order_items (
+    order_id   BIGINT         NOT NULL,
+    flavor     VARCHAR(255),
+    size       VARCHAR(255),
+    quantity   INTEGER,
+    unit_price NUMERIC(38, 2),
+    toppings   VARCHAR(255),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES ice_cream_orders (id)
+);
@@ -0,0 +1,19 @@
+-- Indexes for the access paths used by OrderRepository.
+-- Every list query is ordered by (created_at, id), so each index ends with those columns.
+
+-- Lowercased, trimmed copy of customer_email so email lookups can use an index
+ALTER TABLE ice_cream_orders ADD COLUMN customer_email_normalized VARCHAR(255);
+UPDATE ice_cream_orders SET customer_email_normalized = LOWER(TRIM(customer_email));
+ALTER TABLE ice_cream_orders ALTER COLUMN customer_email_normalized SET NOT NULL;
+
+-- findByStatus, findPageByStatus, countByStatus, findStalePendingOrders, findByStatusAndCreatedAtAfter
+CREATE INDEX idx_orders_status_created_at ON ice_cream_orders (status, created_at, id);
+
+-- findPage, findRecentOrders, findByCreatedAtBetween, export scrolling
+CREATE INDEX idx_orders_created_at ON ice_cream_orders (created_at, id);
+
+-- findPageByCustomerEmail
+CREATE INDEX idx_orders_customer_email ON ice_cream_orders (customer_email_normalized, created_at, id);
+
+-- Item loading for a page of orders
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
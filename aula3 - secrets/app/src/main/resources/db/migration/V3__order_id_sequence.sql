@@ -0,0 +1,8 @@
+-- Order ids come from a pooled sequence instead of an identity column, so Hibernate
+-- can allocate ids in blocks of 50 and batch inserts. Hibernate's pooled optimizer
+-- treats each value as the top of a block, hence the restart one block past max(id).
+
+CREATE SEQUENCE ice_cream_orders_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE ice_cream_orders_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM ice_cream_orders);
+
+ALTER TABLE ice_cream_orders ALTER COLUMN id DROP IDENTITY;
@@ -0,0 +1,3 @@
+-- Optimistic concurrency: every status change increments the row version
+
+ALTER TABLE ice_cream_orders ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
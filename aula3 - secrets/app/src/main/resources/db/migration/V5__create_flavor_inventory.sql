@@ -0,0 +1,10 @@
+-- Stock per flavor and size, written back in batches by FlavorInventory.
+-- Pairs without a row are not tracked and never run out.
+
+CREATE TABLE flavor_inventory (
+    flavor     VARCHAR(255) NOT NULL,
+    size       VARCHAR(255) NOT NULL,
+    available  BIGINT       NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (flavor, size)
+);
@@ -0,0 +1,41 @@
+-- Archive for orders that ended their lifecycle long ago, moved out of ice_cream_orders by
+-- OrderArchiver so the live table only holds the working set. Same columns as the live
+-- tables, plus the time each order was archived.
+
+CREATE TABLE ice_cream_orders_archive (
+    id                        BIGINT         NOT NULL,
+    customer_name             VARCHAR(255)   NOT NULL,
+    customer_email            VARCHAR(255)   NOT NULL,
+    customer_email_normalized VARCHAR(255)   NOT NULL,
+    customer_phone            VARCHAR(255),
+    delivery_address          VARCHAR(500)   NOT NULL,
+    total_amount              NUMERIC(10, 2) NOT NULL,
+    status                    VARCHAR(255)   NOT NULL,
+    payment_method            VARCHAR(255),
+    payment_transaction_id    VARCHAR(255),
+    special_instructions      VARCHAR(1000),
+    estimated_delivery_time   TIMESTAMP(6),
+    created_at                TIMESTAMP(6)   NOT NULL,
+    updated_at                TIMESTAMP(6),
+    version                   BIGINT         NOT NULL,
+    archived_at               TIMESTAMP(6)   NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE order_items_archive (
+    order_id   BIGINT         NOT NULL,
+    flavor     VARCHAR(255),
+    size       VARCHAR(255),
+    quantity   INTEGER,
+    unit_price NUMERIC(38, 2),
+    toppings   VARCHAR(255),
+    CONSTRAINT fk_order_items_archive_order FOREIGN KEY (order_id) REFERENCES ice_cream_orders_archive (id)
+);
+
+-- Customer lookups that fall through to the archive
+CREATE INDEX idx_orders_archive_customer_email ON ice_cream_orders_archive (customer_email_normalized, created_at, id);
+
+-- Revenue rollups reconciled from a given creation time
+CREATE INDEX idx_orders_archive_created_at ON ice_cream_orders_archive (created_at, id);
+
+CREATE INDEX idx_order_items_archive_order_id ON order_items_archive (order_id);
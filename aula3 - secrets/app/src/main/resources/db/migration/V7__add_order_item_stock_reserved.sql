@@ -0,0 +1,7 @@
+-- Whether FlavorInventory reserved stock for an item line when its order was placed, so a
+-- cancellation or refund gives back only what the order took. Lines written before this
+-- column, or of flavors and sizes not tracked at the time, reserved nothing.
+
+ALTER TABLE order_items ADD COLUMN stock_reserved BOOLEAN DEFAULT FALSE NOT NULL;
+
+ALTER TABLE order_items_archive ADD COLUMN stock_reserved BOOLEAN DEFAULT FALSE NOT NULL;
@@ -0,0 +1,79 @@
+package com.icecreamshop.orderservice.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Order List Replica Routing Test - List endpoints read orders and their items from the same database
+ *
+ * The primary and the replica are separate H2 databases holding an order with the same
+ * id but different items. A read request routed to the replica must return the replica's
+ * items with the replica's order, not the primary's.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing_primary_test",
+    "spring.jpa.show-sql=false",
+    "icecream.datasource.routing.enabled=true",
+    "icecream.datasource.replica.url=jdbc:h2:mem:routing_replica_test;DB_CLOSE_DELAY=-1",
+    "icecream.datasource.replica.migrate=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderListReplicaRoutingTest {
+
+    private static final long ORDER_ID = 900_001L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @BeforeAll
+    void insertOrderIntoBothDatabases() {
+        insertOrder(new JdbcTemplate(primaryDataSource), "Primary Vanilla");
+        insertOrder(new JdbcTemplate(replicaDataSource), "Replica Pistachio");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+        "/orders",
+        "/orders/status/PENDING",
+        // Shorter than a trigram, so the search index leaves it to the database
+        "/orders/search?customerName=Ro"
+    })
+    void listReturnsTheReplicasItemsWithTheReplicasOrder(String path) throws Exception {
+        mockMvc.perform(get(path).param("limit", "100"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == " + ORDER_ID + ")].items[*].flavor", contains("Replica Pistachio")));
+    }
+
+    private static void insertOrder(JdbcTemplate jdbcTemplate, String flavor) {
+        jdbcTemplate.update("INSERT INTO ice_cream_orders (id, customer_name, customer_email, "
+            + "customer_email_normalized, delivery_address, total_amount, status, payment_method, created_at) "
+            + "VALUES (?, 'Routing Customer', 'routing@example.com', 'routing@example.com', '1 Routing Road', "
+            + "4.50, 'PENDING', 'CASH_ON_DELIVERY', CURRENT_TIMESTAMP)", ORDER_ID);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, flavor, size, quantity, unit_price) "
+            + "VALUES (?, ?, 'Medium', 1, 4.50)", ORDER_ID, flavor);
+    }
+}
@@ -0,0 +1,92 @@
+package com.icecreamshop.orderservice.controller;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.service.OrderService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Order List Statement Budget Test - Every list endpoint reads a full page of orders
+ * with their items within icecream.query.statement-budget SQL statements
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statement_budget_test")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OrderListStatementBudgetTest {
+
+    private static final int ORDERS = 60;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${icecream.query.statement-budget}")
+    private int statementBudget;
+
+    @BeforeAll
+    void seedOrders() {
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order("Budget Customer", "budget" + (i % 2) + "@example.com", "+1-555-0100",
+                "1 Budget Street", List.of(
+                    new OrderItem("Vanilla", "Small", 1, new BigDecimal("3.50")),
+                    new OrderItem("Chocolate", "Large", 2, new BigDecimal("5.00"), "Sprinkles")),
+                new BigDecimal("13.50"));
+            order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+            Order created = orderService.createOrder(order);
+            if (i % 3 == 0) {
+                orderService.updateOrderStatus(created.getId(), OrderStatus.CONFIRMED);
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+        "/orders,                            /orders",
+        "/orders/status/PENDING,             /orders/status/{status}",
+        "/orders/status/CONFIRMED,           /orders/status/{status}",
+        "/orders/recent,                     /orders/recent",
+        "/orders/customer/budget0@example.com, /orders/customer/{email}",
+        "/orders/search?customerName=Budget, /orders/search",
+        "/orders/search/address?address=Budget, /orders/search/address"
+    })
+    void listEndpointStaysWithinStatementBudget(String path, String route) throws Exception {
+        DistributionSummary before = statements(route);
+        long requestsBefore = before == null ? 0 : before.count();
+
+        mockMvc.perform(get(path).param("limit", String.valueOf(ORDERS)))
+            .andExpect(status().isOk());
+
+        DistributionSummary after = statements(route);
+        assertThat(after).as("statement summary for %s", route).isNotNull();
+        assertThat(after.count()).isEqualTo(requestsBefore + 1);
+        assertThat(after.max()).as("statements executed by GET %s", path).isLessThanOrEqualTo(statementBudget);
+    }
+
+    private DistributionSummary statements(String route) {
+        return meterRegistry.find("orders.http.statements").tag("method", "GET").tag("uri", route).summary();
+    }
+}
@@ -0,0 +1,158 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flavor Inventory Concurrency Test - Threads reserve and release the same stock at once
+ *
+ * Orders take two lines from stocks of different sizes, so the smaller one runs out first
+ * and every later order must put back what it took from the larger one. No stock may go
+ * below zero, and what is left plus what is held must equal what was there.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:flavor_inventory_test",
+    "spring.jpa.show-sql=false",
+    "icecream.inventory.stripes=4"
+})
+class FlavorInventoryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 500;
+
+    @Autowired
+    private FlavorInventory flavorInventory;
+
+    @Test
+    void concurrentOrdersReserveAllOrNothingAndNeverOversell() throws Exception {
+        flavorInventory.setStock("Stress Vanilla", "Medium", 1000);
+        flavorInventory.setStock("Stress Chocolate", "Large", 300);
+        AtomicLong reserved = new AtomicLong();
+        AtomicLong refused = new AtomicLong();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                running.add(threads.submit(() -> {
+                    start.await(30, TimeUnit.SECONDS);
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        List<OrderItem> items = List.of(
+                            item("Stress Vanilla", "Medium", 2),
+                            item("Stress Chocolate", "Large", 1));
+                        try {
+                            FlavorInventory.Reservation reservation = flavorInventory.reserve(items);
+                            assertThat(items).allMatch(OrderItem::isStockReserved);
+                            // Every other order of half the threads is cancelled straight away
+                            if (thread % 2 == 0 && i % 2 == 0) {
+                                flavorInventory.release(flavorInventory.reservationOf(items));
+                            } else {
+                                assertThat(reservation.isEmpty()).isFalse();
+                                reserved.incrementAndGet();
+                            }
+                        } catch (OutOfStockException e) {
+                            assertThat(items).noneMatch(OrderItem::isStockReserved);
+                            refused.incrementAndGet();
+                        } catch (RuntimeException | AssertionError e) {
+                            unexpected.add(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> thread : running) {
+                thread.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertThat(unexpected).as("failures other than OutOfStockException").isEmpty();
+        assertThat(reserved.get()).as("orders holding stock").isPositive().isLessThanOrEqualTo(300);
+        assertThat(refused.get()).isPositive();
+        assertThat(available("Stress Chocolate", "Large")).isEqualTo(300 - reserved.get());
+        assertThat(available("Stress Vanilla", "Medium")).isEqualTo(1000 - 2 * reserved.get());
+    }
+
+    @Test
+    void lineIsFlaggedOnlyWhenItsStockWasTaken() throws Exception {
+        int pairs = 2000;
+        List<List<OrderItem>> orders = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            orders.add(List.of(item("Race " + i, "Small", 1)));
+        }
+        CyclicBarrier start = new CyclicBarrier(2);
+
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            // One thread starts tracking each pair while the other orders it
+            Future<?> tracking = threads.submit(() -> {
+                start.await(30, TimeUnit.SECONDS);
+                for (int i = 0; i < pairs; i++) {
+                    flavorInventory.setStock("Race " + i, "Small", 10);
+                }
+                return null;
+            });
+            Future<?> ordering = threads.submit(() -> {
+                start.await(30, TimeUnit.SECONDS);
+                for (List<OrderItem> items : orders) {
+                    flavorInventory.reserve(items);
+                }
+                return null;
+            });
+            tracking.get(2, TimeUnit.MINUTES);
+            ordering.get(2, TimeUnit.MINUTES);
+        } finally {
+            threads.shutdownNow();
+        }
+
+        Map<String, Long> reservedLevels = raceLevels();
+        for (int i = 0; i < pairs; i++) {
+            OrderItem item = orders.get(i).get(0);
+            assertThat(reservedLevels.get("Race " + i))
+                .as("stock of Race %d, reserved flag %s", i, item.isStockReserved())
+                .isEqualTo(item.isStockReserved() ? 9L : 10L);
+            flavorInventory.release(flavorInventory.reservationOf(orders.get(i)));
+        }
+        assertThat(raceLevels().values()).hasSize(pairs).containsOnly(10L);
+    }
+
+    private long available(String flavor, String size) {
+        return flavorInventory.levels().stream()
+            .filter(level -> level.getFlavor().equals(flavor) && level.getSize().equals(size))
+            .findFirst()
+            .orElseThrow()
+            .getAvailable();
+    }
+
+    private Map<String, Long> raceLevels() {
+        return flavorInventory.levels().stream()
+            .filter(level -> level.getFlavor().startsWith("Race "))
+            .collect(Collectors.toMap(FlavorInventory.StockLevel::getFlavor, FlavorInventory.StockLevel::getAvailable));
+    }
+
+    private static OrderItem item(String flavor, String size, int quantity) {
+        return new OrderItem(flavor, size, quantity, new BigDecimal("4.50"));
+    }
+}
@@ -0,0 +1,342 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.IceCreamOrderServiceApplication;
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.repository.OrderJdbcWriter;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Order Intake Test - Backpressure, durability, batch fallback and shutdown of the asynchronous intake
+ *
+ * The writer thread is held inside its first insert where a test needs orders to pile
+ * up in the queue, and let go once they have.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:order_intake_test",
+    "spring.jpa.show-sql=false",
+    "icecream.intake.mode=async",
+    "icecream.intake.capacity=2",
+    "icecream.intake.offer-timeout=20ms"
+})
+@AutoConfigureMockMvc
+class OrderIntakeTest {
+
+    private static final String FLAVOR = "Pistachio";
+    private static final String SIZE = "Large";
+    private static final int QUANTITY = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private FlavorInventory inventory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private OrderJdbcWriter orderJdbcWriter;
+
+    @Test
+    void fullQueueAnswers503WithRetryAfter() throws Exception {
+        inventory.setStock(FLAVOR, SIZE, 100);
+        double rejectedBefore = counter("orders.intake.rejected");
+        HeldWriter held = hold(orderJdbcWriter);
+
+        // The first order is taken by the held writer, the next two fill the queue
+        mockMvc.perform(postOrder()).andExpect(status().isAccepted());
+        held.awaitEntered();
+        mockMvc.perform(postOrder()).andExpect(status().isAccepted());
+        mockMvc.perform(postOrder()).andExpect(status().isAccepted());
+
+        mockMvc.perform(postOrder())
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        assertThat(counter("orders.intake.rejected")).isEqualTo(rejectedBefore + 1);
+        assertThat(available()).as("stock of the rejected order is released").isEqualTo(100 - 3 * QUANTITY);
+        held.release();
+    }
+
+    @Test
+    void failingBatchFallsBackToSingleInsertsAndReleasesTheBadOrder() throws Exception {
+        inventory.setStock(FLAVOR, SIZE, 100);
+        double failedBefore = counter("orders.intake.failed");
+        HeldWriter held = hold(orderJdbcWriter);
+
+        Order first = orderService.createOrder(newOrder("1 Intake Street"));
+        held.awaitEntered();
+        // Too long for delivery_address, so the batch holding it fails in the database
+        Order bad = orderService.createOrder(newOrder("x".repeat(600)));
+        Order good = orderService.createOrder(newOrder("2 Intake Street"));
+        held.release();
+
+        awaitUntil(() -> orderRepository.existsById(good.getId()));
+        assertThat(orderRepository.existsById(first.getId())).isTrue();
+        awaitUntil(() -> counter("orders.intake.failed") == failedBefore + 1);
+        assertThat(orderRepository.existsById(bad.getId())).isFalse();
+        assertThat(available()).as("stock of the failed order is released").isEqualTo(100 - 2 * QUANTITY);
+    }
+
+    @Test
+    void committedDurabilityWaitsForTheBatchToCommit() throws Exception {
+        OrderIntake intake = new OrderIntake(dataSource, orderJdbcWriter, orderRepository, new SimpleMeterRegistry(),
+            "async", "committed", 16, 500, Duration.ofMillis(20), Duration.ofSeconds(10));
+        try {
+            HeldWriter held = hold(orderJdbcWriter);
+            Order order = queuedOrder(intake, "3 Intake Street");
+            AtomicBoolean committed = new AtomicBoolean();
+
+            CompletableFuture<Void> submitted = CompletableFuture.runAsync(
+                () -> intake.submit(order, () -> committed.set(true), () -> { }));
+            held.awaitEntered();
+            Thread.sleep(200);
+            assertThat(submitted).as("submit returned before the commit").isNotDone();
+
+            held.release();
+            submitted.get(10, TimeUnit.SECONDS);
+            assertThat(committed).isTrue();
+            assertThat(orderRepository.existsById(order.getId())).isTrue();
+        } finally {
+            intake.shutdown();
+        }
+    }
+
+    @Test
+    void commitTimeoutAcceptsTheOrderAndStillStoresIt() throws Exception {
+        OrderIntake intake = new OrderIntake(dataSource, orderJdbcWriter, orderRepository, new SimpleMeterRegistry(),
+            "async", "committed", 16, 500, Duration.ofMillis(20), Duration.ofMillis(100));
+        try {
+            HeldWriter held = hold(orderJdbcWriter);
+            Order order = queuedOrder(intake, "5 Intake Street");
+            AtomicBoolean committed = new AtomicBoolean();
+            AtomicBoolean failed = new AtomicBoolean();
+
+            // Returns once the commit timeout passes, without failing the order it already queued
+            intake.submit(order, () -> committed.set(true), () -> failed.set(true));
+            held.awaitEntered();
+            assertThat(committed).isFalse();
+
+            held.release();
+            awaitUntil(committed::get);
+            assertThat(failed).as("order failed after the commit timeout").isFalse();
+            assertThat(orderRepository.existsById(order.getId())).isTrue();
+        } finally {
+            intake.shutdown();
+        }
+    }
+
+    @Test
+    void interruptedWaitWithdrawsAnOrderTheWriterHasNotTaken() throws Exception {
+        OrderIntake intake = new OrderIntake(dataSource, orderJdbcWriter, orderRepository, new SimpleMeterRegistry(),
+            "async", "committed", 16, 500, Duration.ofMillis(20), Duration.ofSeconds(10));
+        try {
+            HeldWriter held = hold(orderJdbcWriter);
+            Order first = queuedOrder(intake, "6 Intake Street");
+            CompletableFuture<Void> firstSubmitted = CompletableFuture.runAsync(
+                () -> intake.submit(first, () -> { }, () -> { }));
+            held.awaitEntered();
+
+            Order withdrawn = queuedOrder(intake, "7 Intake Street");
+            AtomicBoolean failed = new AtomicBoolean();
+            CompletableFuture<Throwable> outcome = new CompletableFuture<>();
+            Thread waiting = new Thread(() -> {
+                try {
+                    intake.submit(withdrawn, () -> { }, () -> failed.set(true));
+                    outcome.complete(null);
+                } catch (RuntimeException e) {
+                    outcome.complete(e);
+                }
+            });
+            waiting.start();
+            Thread.sleep(200);
+            waiting.interrupt();
+
+            assertThat(outcome.get(10, TimeUnit.SECONDS)).isInstanceOf(OrderIntakeUnavailableException.class);
+            assertThat(failed).as("onFailed ran for the withdrawn order").isTrue();
+            held.release();
+            firstSubmitted.get(10, TimeUnit.SECONDS);
+            assertThat(orderRepository.existsById(first.getId())).isTrue();
+            assertThat(orderRepository.existsById(withdrawn.getId())).isFalse();
+        } finally {
+            intake.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownWritesOutTheQueueBeforeTheDataSourceCloses() throws Exception {
+        String url = "jdbc:h2:mem:order_intake_shutdown_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        List<HeldWriter> writers = new ArrayList<>();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(IceCreamOrderServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .initializers(initializing -> initializing.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof OrderJdbcWriter) {
+                        OrderJdbcWriter spy = Mockito.spy((OrderJdbcWriter) bean);
+                        writers.add(hold(spy));
+                        return spy;
+                    }
+                    return bean;
+                }
+            }))
+            .run("--spring.datasource.url=" + url,
+                 "--spring.jpa.show-sql=false",
+                 "--spring.main.banner-mode=off",
+                 "--icecream.intake.mode=async");
+        HeldWriter held = writers.get(0);
+        OrderService service = context.getBean(OrderService.class);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ids.add(service.createOrder(newOrder(i + " Shutdown Street")).getId());
+        }
+        held.awaitEntered();
+
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(context::close);
+        Thread.sleep(200);
+        held.release();
+        closed.get(30, TimeUnit.SECONDS);
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM ice_cream_orders WHERE id BETWEEN "
+                 + ids.get(0) + " AND " + ids.get(ids.size() - 1))) {
+            rs.next();
+            assertThat(rs.getInt(1)).as("orders stored after shutdown").isEqualTo(ids.size());
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    /**
+     * Make the writer's first insert wait until released
+     */
+    private static HeldWriter hold(OrderJdbcWriter writer) {
+        HeldWriter held = new HeldWriter();
+        try {
+            doAnswer(invocation -> {
+                if (held.first.compareAndSet(true, false)) {
+                    held.entered.countDown();
+                    held.gate.await(30, TimeUnit.SECONDS);
+                }
+                return invocation.callRealMethod();
+            }).when(writer).insert(any(Connection.class), anyList());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return held;
+    }
+
+    private static final class HeldWriter {
+        private final AtomicBoolean first = new AtomicBoolean(true);
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(10, TimeUnit.SECONDS)).as("writer started its first insert").isTrue();
+        }
+
+        void release() {
+            gate.countDown();
+        }
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * A new order with its id assigned and defaults set, the way OrderService hands it to the intake
+     */
+    private static Order queuedOrder(OrderIntake intake, String deliveryAddress) {
+        Order order = newOrder(deliveryAddress);
+        order.setId(intake.nextId());
+        order.setVersion(0L);
+        order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private long available() {
+        return inventory.levels().stream()
+            .filter(level -> level.getFlavor().equals(FLAVOR) && level.getSize().equals(SIZE))
+            .findFirst().orElseThrow()
+            .getAvailable();
+    }
+
+    private static Order newOrder(String deliveryAddress) {
+        Order order = new Order("Intake Customer", "intake@example.com", "+1-555-0100", deliveryAddress,
+            List.of(new OrderItem(FLAVOR, SIZE, QUANTITY, new BigDecimal("5.00"))), new BigDecimal("10.00"));
+        order.setPaymentMethod(PaymentMethod.PAYPAL);
+        order.setCreatedAt(LocalDateTime.now());
+        return order;
+    }
+
+    private static RequestBuilder postOrder() {
+        return post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"customerName\":\"Intake Customer\",\"customerEmail\":\"intake@example.com\","
+                + "\"customerPhone\":\"+1-555-0100\",\"deliveryAddress\":\"4 Intake Street\",\"totalAmount\":10.00,"
+                + "\"paymentMethod\":\"PAYPAL\",\"items\":[{\"flavor\":\"" + FLAVOR + "\",\"size\":\"" + SIZE
+                + "\",\"quantity\":" + QUANTITY + ",\"unitPrice\":5.00}]}");
+    }
+}
@@ -0,0 +1,135 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order Status CAS Stress Test - Threads race the same legal transitions on shared orders
+ *
+ * Every thread tries each step of the delivery path on every order, all threads on the
+ * same step at once. Exactly one call per order and step may win; every other call must
+ * fail with OrderStatusConflictException, and each order must end delivered at a version
+ * equal to its number of successful transitions.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:status_cas_test",
+    "spring.jpa.show-sql=false"
+})
+class OrderStatusCasStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusCasStressTest.class);
+
+    private static final int THREADS = 8;
+    private static final int ORDERS = 40;
+    private static final OrderStatus[] PATH = {
+        OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING,
+        OrderStatus.READY, OrderStatus.OUT_FOR_DELIVERY, OrderStatus.DELIVERED
+    };
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void concurrentTransitionsHaveOneWinnerPerStep() throws Exception {
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(orderService.createOrder(newOrder(i)).getId());
+        }
+        int steps = PATH.length - 1;
+        AtomicIntegerArray winners = new AtomicIntegerArray(ORDERS * steps);
+        AtomicLong conflicts = new AtomicLong();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CyclicBarrier stepStart = new CyclicBarrier(THREADS);
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                running.add(threads.submit(() -> {
+                    List<Integer> order = new ArrayList<>();
+                    for (int i = 0; i < ORDERS; i++) {
+                        order.add(i);
+                    }
+                    for (int step = 0; step < steps; step++) {
+                        stepStart.await(30, TimeUnit.SECONDS);
+                        // Each thread walks the orders in its own order, so races land on different rows
+                        Collections.shuffle(order);
+                        for (int i : order) {
+                            try {
+                                orderService.updateOrderStatus(orderIds.get(i), PATH[step + 1], PATH[step], null);
+                                winners.incrementAndGet(i * steps + step);
+                            } catch (OrderStatusConflictException e) {
+                                conflicts.incrementAndGet();
+                            } catch (RuntimeException e) {
+                                unexpected.add(e);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> thread : running) {
+                thread.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+
+        long attempts = (long) THREADS * ORDERS * steps;
+        log.info("{} status updates from {} threads in {} ms: {} updates/s, {} conflicts",
+                 attempts, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                 attempts * 1_000_000_000L / elapsedNanos, conflicts.get());
+
+        assertThat(unexpected).as("failures other than OrderStatusConflictException").isEmpty();
+        long successes = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            for (int step = 0; step < steps; step++) {
+                assertThat(winners.get(i * steps + step))
+                    .as("winners for order %d moving to %s", orderIds.get(i), PATH[step + 1])
+                    .isEqualTo(1);
+                successes++;
+            }
+            Object[] statusAndVersion = orderRepository.findStatusAndVersionById(orderIds.get(i)).get(0);
+            assertThat(statusAndVersion[0]).isEqualTo(OrderStatus.DELIVERED);
+            assertThat(statusAndVersion[1]).isEqualTo((long) steps);
+        }
+        assertThat(successes + conflicts.get()).isEqualTo(attempts);
+    }
+
+    private static Order newOrder(int i) {
+        Order order = new Order("Stress Customer", "stress" + i + "@example.com", "+1-555-0100",
+            i + " Stress Street", List.of(new OrderItem("Vanilla", "Medium", 1, new BigDecimal("4.50"))),
+            new BigDecimal("4.50"));
+        order.setPaymentMethod(PaymentMethod.CASH_ON_DELIVERY);
+        return order;
+    }
+}
@@ -0,0 +1,41 @@
+package com.icecreamshop.orderservice.benchmark;
+
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order Fixtures - Deterministic sample orders for the benchmarks
+ */
+public final class OrderFixtures {
+    
+    static final String[] FLAVORS = {
+        "Vanilla", "Chocolate", "Strawberry", "Mint Chocolate Chip", "Rocky Road", "Cookies and Cream"
+    };
+    static final String[] SIZES = {"Small", "Medium", "Large"};
+    
+    private OrderFixtures() {}
+    
+    /**
+     * A valid order with the given number of single-scoop items
+     */
+    public static Order order(int itemCount) {
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem(FLAVORS[i % FLAVORS.length], SIZES[i % SIZES.length], 1,
+                                           new BigDecimal("4.99"), i % 2 == 0 ? "Sprinkles" : null);
+            items.add(item);
+            total = total.add(item.getSubtotal());
+        }
+        Order order = new Order("Benchmark Customer", "benchmark.customer@email.com", "+1-555-000-0000",
+                                "1 Benchmark Road, Ice Cream City, IC 12345", items, total);
+        order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+        order.setSpecialInstructions("Leave at the door");
+        return order;
+    }
+}
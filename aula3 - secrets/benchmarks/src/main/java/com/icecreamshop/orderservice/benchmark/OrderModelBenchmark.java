@@ -0,0 +1,88 @@
+package com.icecreamshop.orderservice.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order Model Benchmark - Pricing, Bean Validation and JSON mapping of a single order
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderModelBenchmark {
+    
+    @Param({"1", "10", "50"})
+    private int items;
+    
+    private Order order;
+    private OrderItem item;
+    private byte[] json;
+    private ObjectMapper objectMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    
+    @Setup
+    public void setUp() throws Exception {
+        order = OrderFixtures.order(items);
+        item = order.getItems().get(0);
+        // Same features as the Spring Boot auto-configured mapper
+        objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        json = objectMapper.writeValueAsBytes(order);
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+    
+    @Benchmark
+    public BigDecimal itemSubtotal() {
+        return item.getSubtotal();
+    }
+    
+    @Benchmark
+    public BigDecimal orderTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem orderItem : order.getItems()) {
+            total = total.add(orderItem.getSubtotal());
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public Set<ConstraintViolation<Order>> beanValidation() {
+        return validator.validate(order);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(order);
+    }
+    
+    @Benchmark
+    public Order deserialize() throws Exception {
+        return objectMapper.readValue(json, Order.class);
+    }
+}
@@ -0,0 +1,149 @@
+package com.icecreamshop.orderservice.benchmark;
+
+import com.icecreamshop.orderservice.IceCreamOrderServiceApplication;
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import com.icecreamshop.orderservice.service.OrderCursor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order Repository Benchmark - OrderRepository reads against an in-memory H2 database
+ * 
+ * The table is filled with the given number of orders (two items each), spread over
+ * the last 90 days and evenly across statuses. With indexes=false the secondary
+ * indexes from the V2 migration are dropped first, to compare query latency with
+ * and without them, e.g. -p rows=1000000. The archiver, the stale pending order sweeper
+ * and the seeder are switched off, so the rows stay as populated for every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderRepositoryBenchmark {
+    
+    private static final long FIRST_ID = 1_000_000L;
+    private static final int INSERT_BATCH = 1000;
+    private static final String[] INDEXES = {
+        "idx_orders_status_created_at", "idx_orders_created_at", "idx_orders_customer_email"
+    };
+    
+    @Param({"100000"})
+    private int rows;
+    
+    @Param({"true", "false"})
+    private boolean indexes;
+    
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(IceCreamOrderServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                 "--spring.jpa.show-sql=false",
+                 "--spring.main.banner-mode=off",
+                 // Background jobs would archive and cancel orders while the benchmark measures
+                 "--icecream.archive.enabled=false",
+                 "--icecream.sweeper.enabled=false",
+                 "--icecream.seed.orders=0",
+                 "--icecream.seed.customers=0",
+                 "--logging.level.root=WARN",
+                 "--logging.level.com.icecreamshop=WARN");
+        orderRepository = context.getBean(OrderRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        populate(jdbcTemplate);
+        if (!indexes) {
+            for (String index : INDEXES) {
+                jdbcTemplate.execute("DROP INDEX " + index);
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Optional<Order> findById() {
+        return orderRepository.findById(FIRST_ID + ThreadLocalRandom.current().nextInt(rows));
+    }
+    
+    @Benchmark
+    public List<Order> findByStatus() {
+        return orderRepository.findByStatus(randomStatus());
+    }
+    
+    @Benchmark
+    public List<Order> findPageByStatus() {
+        OrderCursor start = OrderCursor.START;
+        return orderRepository.findPageByStatus(randomStatus(), start.getCreatedAt(), start.getId(), Limit.of(50));
+    }
+    
+    @Benchmark
+    public List<Order> findRecentOrders() {
+        return orderRepository.findRecentOrders(LocalDateTime.now().minusHours(24));
+    }
+    
+    private static OrderStatus randomStatus() {
+        OrderStatus[] statuses = OrderStatus.values();
+        return statuses[ThreadLocalRandom.current().nextInt(statuses.length)];
+    }
+    
+    private void populate(JdbcTemplate jdbcTemplate) {
+        OrderStatus[] statuses = OrderStatus.values();
+        PaymentMethod[] paymentMethods = PaymentMethod.values();
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> orders = new ArrayList<>(INSERT_BATCH);
+        List<Object[]> items = new ArrayList<>(INSERT_BATCH * 2);
+        
+        for (int i = 0; i < rows; i++) {
+            long id = FIRST_ID + i;
+            String email = "customer" + (i % 5000) + "@email.com";
+            LocalDateTime createdAt = now.minusMinutes(ThreadLocalRandom.current().nextLong(90L * 24 * 60));
+            orders.add(new Object[] {
+                id, "Customer " + (i % 5000), email, email, "+1-555-000-0000", i + " Benchmark Road",
+                new BigDecimal("9.98"), statuses[i % statuses.length].name(),
+                paymentMethods[i % paymentMethods.length].name(), Timestamp.valueOf(createdAt)
+            });
+            for (int j = 0; j < 2; j++) {
+                items.add(new Object[] {
+                    id, OrderFixtures.FLAVORS[(i + j) % OrderFixtures.FLAVORS.length],
+                    OrderFixtures.SIZES[j], 1, new BigDecimal("4.99")
+                });
+            }
+            if (orders.size() == INSERT_BATCH || i == rows - 1) {
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO ice_cream_orders (id, customer_name, customer_email, customer_email_normalized, " +
+                    "customer_phone, delivery_address, total_amount, status, payment_method, created_at, version) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", orders);
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO order_items (order_id, flavor, size, quantity, unit_price) VALUES (?, ?, ?, ?, ?)",
+                    items);
+                orders.clear();
+                items.clear();
+            }
+        }
+    }
+}
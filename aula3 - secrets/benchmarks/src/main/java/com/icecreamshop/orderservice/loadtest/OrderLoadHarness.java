@@ -0,0 +1,298 @@
+package com.icecreamshop.orderservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.icecreamshop.orderservice.IceCreamOrderServiceApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order Load Harness - End-to-end HTTP load against the order endpoints
+ * 
+ * Boots IceCreamOrderServiceApplication on a random port (or targets load.target),
+ * seeds orders, then runs load.clients closed-loop clients for load.duration seconds
+ * after load.warmup seconds of warm-up. Each request picks an endpoint from the
+ * weighted load.mix. Throughput and p50/p99/p999 latency per endpoint are printed
+ * and written as JSON to load.report.
+ * 
+ * Run with: mvn -B package exec:exec -Pload -Dload.clients=64 -Dload.duration=60
+ */
+public class OrderLoadHarness {
+    
+    private static final String[] NAMES = {"Alice", "Bob", "Carol", "David", "Erin", "Frank", "Grace", "Heidi"};
+    private static final String[] FLAVORS = {"Vanilla", "Chocolate", "Strawberry", "Rocky Road", "Mint Chocolate Chip"};
+    private static final String[] TRANSITIONS = {"CONFIRMED", "PREPARING", "READY", "OUT_FOR_DELIVERY", "DELIVERED"};
+    private static final int KNOWN_IDS = 8192;
+    
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final String baseUrl;
+    private final Map<String, Integer> mix;
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final AtomicLongArray knownIds = new AtomicLongArray(KNOWN_IDS);
+    private final AtomicLong knownIdCount = new AtomicLong();
+    
+    OrderLoadHarness(String baseUrl, Map<String, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        mix.keySet().forEach(name -> endpoints.put(name, new Endpoint()));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.clients", 32);
+        int durationSeconds = Integer.getInteger("load.duration", 30);
+        int warmupSeconds = Integer.getInteger("load.warmup", 5);
+        int seedOrders = Integer.getInteger("load.seed-orders", 500);
+        String target = System.getProperty("load.target", "");
+        String report = System.getProperty("load.report", "target/load-report.json");
+        Map<String, Integer> mix = parseMix(System.getProperty("load.mix",
+            "create:15,get:40,status:10,search:10,statistics:10,recent:15"));
+        
+        ConfigurableApplicationContext context = null;
+        String baseUrl = target;
+        if (target.isBlank()) {
+            context = new SpringApplicationBuilder(IceCreamOrderServiceApplication.class)
+                .run("--server.port=0",
+                     "--spring.datasource.url=jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                     "--spring.jpa.show-sql=false",
+                     "--spring.main.banner-mode=off",
+                     "--logging.level.root=WARN",
+                     "--logging.level.com.icecreamshop=WARN",
+                     "--logging.level.org.springframework.web=WARN");
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api/v1";
+        }
+        
+        try {
+            OrderLoadHarness harness = new OrderLoadHarness(baseUrl, mix);
+            harness.seed(seedOrders);
+            harness.run(clients, warmupSeconds, durationSeconds);
+            harness.report(durationSeconds, new File(report));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    private void seed(int orders) throws Exception {
+        for (int seeded = 0; seeded < orders; seeded += 100) {
+            ArrayNode batch = objectMapper.createArrayNode();
+            for (int i = seeded; i < Math.min(orders, seeded + 100); i++) {
+                batch.add(orderJson());
+            }
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/orders/batch"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(batch.toString())));
+            for (JsonNode result : objectMapper.readTree(response.body()).path("results")) {
+                if (result.path("created").asBoolean()) {
+                    remember(result.path("orderId").asLong());
+                }
+            }
+        }
+        System.out.printf("Seeded %d orders against %s%n", knownIdCount.get(), baseUrl);
+    }
+    
+    private void run(int clients, int warmupSeconds, int durationSeconds) throws InterruptedException {
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        List<Thread> workers = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread worker = new Thread(() -> {
+                while (true) {
+                    long now = System.nanoTime();
+                    if (now >= end) {
+                        return;
+                    }
+                    String name = pick();
+                    int status = execute(name);
+                    long latency = System.nanoTime() - now;
+                    if (now >= warmupEnd) {
+                        endpoints.get(name).record(latency, status);
+                    }
+                }
+            }, "load-client-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+    
+    private String pick() {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+    
+    /**
+     * Issue one request for the endpoint and return its HTTP status, or -1 on I/O failure
+     */
+    private int execute(String name) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            HttpRequest.Builder request;
+            switch (name) {
+                case "create":
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(orderJson().toString()));
+                    break;
+                case "get":
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + randomKnownId())).GET();
+                    break;
+                case "status":
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/" + randomKnownId()
+                            + "/status?status=" + TRANSITIONS[random.nextInt(TRANSITIONS.length)]))
+                        .method("PATCH", HttpRequest.BodyPublishers.noBody());
+                    break;
+                case "search":
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/search?customerName="
+                            + NAMES[random.nextInt(NAMES.length)].substring(0, 3))).GET();
+                    break;
+                case "statistics":
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/statistics")).GET();
+                    break;
+                case "recent":
+                    request = HttpRequest.newBuilder(URI.create(baseUrl + "/orders/recent")).GET();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown endpoint in mix: " + name);
+            }
+            HttpResponse<String> response = send(request);
+            if (name.equals("create") && response.statusCode() == 201) {
+                remember(objectMapper.readTree(response.body()).path("id").asLong());
+            }
+            return response.statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+    
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private ObjectNode orderJson() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String name = NAMES[random.nextInt(NAMES.length)] + " Customer" + random.nextInt(1000);
+        ObjectNode order = objectMapper.createObjectNode()
+            .put("customerName", name)
+            .put("customerEmail", name.replace(' ', '.').toLowerCase() + "@email.com")
+            .put("customerPhone", "+1-555-000-0000")
+            .put("deliveryAddress", random.nextInt(1000) + " Load Test Avenue, Ice Cream City")
+            .put("totalAmount", 9.98)
+            .put("paymentMethod", "CREDIT_CARD");
+        order.putArray("items").addObject()
+            .put("flavor", FLAVORS[random.nextInt(FLAVORS.length)])
+            .put("size", "Medium")
+            .put("quantity", 2)
+            .put("unitPrice", 4.99);
+        return order;
+    }
+    
+    private void remember(long id) {
+        knownIds.set((int) (knownIdCount.getAndIncrement() % KNOWN_IDS), id);
+    }
+    
+    private long randomKnownId() {
+        int known = (int) Math.min(knownIdCount.get(), KNOWN_IDS);
+        return known == 0 ? 1 : knownIds.get(ThreadLocalRandom.current().nextInt(known));
+    }
+    
+    private void report(int durationSeconds, File file) throws Exception {
+        ObjectNode json = objectMapper.createObjectNode();
+        System.out.printf("%n%-12s %10s %10s %10s %10s %10s %10s %10s%n",
+                          "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            Histogram latency = endpoint.latency;
+            long requests = latency.getTotalCount();
+            double throughput = (double) requests / durationSeconds;
+            System.out.printf("%-12s %10d %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(), requests,
+                              endpoint.errors.sum(), throughput, millis(latency, 50), millis(latency, 99),
+                              millis(latency, 99.9), latency.getMaxValue() / 1e6);
+            ObjectNode node = json.putObject(entry.getKey());
+            node.put("requests", requests);
+            node.put("errors", endpoint.errors.sum());
+            node.put("throughputPerSecond", throughput);
+            node.put("p50Millis", millis(latency, 50));
+            node.put("p99Millis", millis(latency, 99));
+            node.put("p999Millis", millis(latency, 99.9));
+            node.put("maxMillis", latency.getMaxValue() / 1e6);
+            ObjectNode statuses = node.putObject("statusCodes");
+            endpoint.statusCodes.forEach((code, count) -> statuses.put(String.valueOf(code), count.sum()));
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        objectMapper.writeValue(file, json);
+        System.out.println("Report written to " + file.getPath());
+    }
+    
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+    
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] weight = part.trim().split(":");
+            mix.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+    
+    /**
+     * Latency and outcome counters for one endpoint
+     */
+    private static class Endpoint {
+        private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        private final LongAdder errors = new LongAdder();
+        private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+        
+        void record(long latencyNanos, int status) {
+            latency.recordValue(Math.min(latencyNanos, latency.getHighestTrackableValue()));
+            statusCodes.computeIfAbsent(status, code -> new LongAdder()).increment();
+            // Status conflicts (409) are an expected outcome of concurrent transitions
+            if (status < 0 || status >= 500) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.model.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flavor Inventory Benchmark - Concurrent reserve and release of flavor stock
+ * 
+ * Compares one stripe per stock with one per core (stripes=0), with every thread
+ * ordering the same flavor (hot) or each its own (spread), single-threaded and
+ * with one thread per core. Each operation reserves two scoops and gives them back,
+ * so stock never runs out.
+ * 
+ * Run with: mvn -B package exec:exec -Djmh.includes=FlavorInventoryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlavorInventoryBenchmark {
+    
+    private static final String[] FLAVORS = {"Vanilla", "Chocolate", "Strawberry", "Rocky Road",
+                                              "Mint Chocolate Chip", "Pistachio", "Cookies and Cream", "Mango"};
+    
+    @Param({"1", "0"})
+    private int stripes;
+    
+    @Param({"hot", "spread"})
+    private String mix;
+    
+    private FlavorInventory inventory;
+    private final AtomicInteger threads = new AtomicInteger();
+    
+    @Setup
+    public void setUp() {
+        inventory = new FlavorInventory(null, new SimpleMeterRegistry(), stripes);
+        for (String flavor : FLAVORS) {
+            inventory.setStock(flavor, "Medium", 1_000_000_000L);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class Customer {
+        private List<OrderItem> items;
+    
+        @Setup
+        public void setUp(FlavorInventoryBenchmark benchmark) {
+            int thread = benchmark.threads.getAndIncrement();
+            String flavor = "hot".equals(benchmark.mix) ? FLAVORS[0] : FLAVORS[thread % FLAVORS.length];
+            items = List.of(new OrderItem(flavor, "Medium", 2, new BigDecimal("4.99")));
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public void reserveAndRelease(Customer customer, Blackhole blackhole) {
+        FlavorInventory.Reservation reservation = inventory.reserve(customer.items);
+        blackhole.consume(reservation);
+        inventory.release(reservation);
+    }
+    
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void reserveAndReleaseContended(Customer customer, Blackhole blackhole) {
+        FlavorInventory.Reservation reservation = inventory.reserve(customer.items);
+        blackhole.consume(reservation);
+        inventory.release(reservation);
+    }
+}
@@ -0,0 +1,139 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.IceCreamOrderServiceApplication;
+import com.icecreamshop.orderservice.model.Order;
+import com.icecreamshop.orderservice.model.OrderItem;
+import com.icecreamshop.orderservice.model.OrderStatus;
+import com.icecreamshop.orderservice.model.PaymentMethod;
+import com.icecreamshop.orderservice.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order Status Transition Benchmark - Compare-and-set status updates racing on shared orders
+ *
+ * Each operation reads an order's status and version and moves it one step along the
+ * delivery path with updateOrderStatus, expecting what it read; a delivered order is
+ * put back to pending first. Fewer orders means more threads racing on the same row:
+ * the transitions and conflicts counters show how many calls won and lost their CAS.
+ *
+ * Run with: mvn -B package exec:exec -Djmh.includes=OrderStatusTransitionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderStatusTransitionBenchmark {
+
+    @Param({"1", "64", "4096"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderRepository orderRepository;
+    private JdbcTemplate jdbcTemplate;
+    private long[] orderIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(IceCreamOrderServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                 "--spring.jpa.show-sql=false",
+                 "--spring.main.banner-mode=off",
+                 // Background jobs would archive and cancel orders while the benchmark measures
+                 "--icecream.archive.enabled=false",
+                 "--icecream.sweeper.enabled=false",
+                 "--icecream.seed.orders=0",
+                 "--icecream.seed.customers=0",
+                 "--logging.level.root=WARN",
+                 "--logging.level.com.icecreamshop=WARN");
+        orderService = context.getBean(OrderService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        orderIds = new long[orders];
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order("Customer " + i, "customer" + i + "@email.com", "+1-555-000-0000",
+                i + " Benchmark Road", List.of(new OrderItem("Vanilla", "Medium", 1, new BigDecimal("4.99"))),
+                new BigDecimal("4.99"));
+            order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+            orderIds[i] = orderService.createOrder(order).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Calls per thread that won or lost their compare-and-set
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long transitions;
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            transitions = 0;
+            conflicts = 0;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transition(Outcomes outcomes) {
+        advance(outcomes);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void transitionContended(Outcomes outcomes) {
+        advance(outcomes);
+    }
+
+    private void advance(Outcomes outcomes) {
+        Long id = orderIds[ThreadLocalRandom.current().nextInt(orders)];
+        Object[] current = orderRepository.findStatusAndVersionById(id).get(0);
+        OrderStatus status = (OrderStatus) current[0];
+        if (status == OrderStatus.DELIVERED) {
+            jdbcTemplate.update("UPDATE ice_cream_orders SET status = 'PENDING' WHERE id = ? AND status = 'DELIVERED'",
+                                id);
+            return;
+        }
+        try {
+            orderService.updateOrderStatus(id, next(status), status, (Long) current[1]);
+            outcomes.transitions++;
+        } catch (OrderStatusConflictException e) {
+            outcomes.conflicts++;
+        }
+    }
+
+    private static OrderStatus next(OrderStatus status) {
+        switch (status) {
+            case PENDING:
+                return OrderStatus.CONFIRMED;
+            case CONFIRMED:
+                return OrderStatus.PREPARING;
+            case PREPARING:
+                return OrderStatus.READY;
+            case READY:
+                return OrderStatus.OUT_FOR_DELIVERY;
+            default:
+                return OrderStatus.DELIVERED;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.icecreamshop.orderservice.service;
+
+import com.icecreamshop.orderservice.benchmark.OrderFixtures;
+import com.icecreamshop.orderservice.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order Validation Benchmark - OrderService business-rule validation of a new order
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderValidationBenchmark {
+    
+    @Param({"1", "10", "50"})
+    private int items;
+    
+    private OrderService orderService;
+    private Order order;
+    
+    @Setup
+    public void setUp() throws Exception {
+        orderService = new OrderService();
+        Field maxOrderQuantity = OrderService.class.getDeclaredField("maxOrderQuantity");
+        maxOrderQuantity.setAccessible(true);
+        maxOrderQuantity.set(orderService, 50);
+        order = OrderFixtures.order(items);
+    }
+    
+    @Benchmark
+    public void validateOrder(Blackhole blackhole) {
+        orderService.validateOrder(order);
+        blackhole.consume(order);
+    }
+}